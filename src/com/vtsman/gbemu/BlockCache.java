@@ -0,0 +1,158 @@
+package com.vtsman.gbemu;
+
+//This class stores basic blocks - straight runs of already decoded instructions - so the
+//CPU doesn't have to decode the same loop over and over. Blocks in ROM are keyed by bank,
+//blocks in RAM are thrown away as soon as something writes over them
+public class BlockCache {
+
+	//Longest block we bother decoding
+	public static final int MAX_BLOCK = 32;
+	//Most bytes a block can cover, every instruction is at most 3 bytes long
+	private static final int MAX_BYTES = MAX_BLOCK * 3;
+
+	//Direct mapped - a new block just replaces whatever was in its slot
+	private static final int SIZE = 4096;
+	private Block[] table = new Block[SIZE];
+
+	//One bit per address, set for RAM bytes that belong to a cached block. Bits can go
+	//stale when a block is dropped, they get cleared the next time that byte is written
+	private long[] codeMap = new long[0x10000 >> 6];
+
+	private boolean cartRamBlocks = false;
+
+	//Bumped whenever cached code or the ROM bank may have changed, so the CPU can bail
+	//out of a block that just rewrote itself
+	int epoch = 0;
+
+	private MMU m;
+
+	public BlockCache(MMU m) {
+		this.m = m;
+	}
+
+	//Returns the address the block starting at addr has to stop before, or -1 if code
+	//there shouldn't be cached at all (VRAM, echo RAM, OAM, IO)
+	public static int regionEnd(int addr) {
+		if (addr < 0x4000) {
+			return 0x4000;
+		}
+		if (addr < 0x8000) {
+			return 0x8000;
+		}
+		if (addr >= 0xa000 && addr < 0xc000) {
+			return 0xc000;
+		}
+		if (addr >= 0xc000 && addr < 0xd000) {
+			return 0xd000;
+		}
+		if (addr >= 0xd000 && addr < 0xe000) {
+			return 0xe000;
+		}
+		if (addr >= 0xff80 && addr < 0xffff) {
+			return 0xffff;
+		}
+		return -1;
+	}
+
+	//Only the switchable ROM area needs a bank, RAM blocks get dropped on bank changes
+	private int bankFor(int addr) {
+		if (addr >= 0x4000 && addr < 0x8000) {
+			return this.m.getRomBank();
+		}
+		return 0;
+	}
+
+	private static int slot(int addr, int bank) {
+		return (addr ^ (bank << 7)) & (SIZE - 1);
+	}
+
+	public Block lookup(int addr) {
+		int bank = bankFor(addr);
+		Block b = this.table[slot(addr, bank)];
+		if (b != null && b.start == addr && b.bank == bank) {
+			return b;
+		}
+		return null;
+	}
+
+	public void put(Block b) {
+		b.bank = bankFor(b.start);
+		this.table[slot(b.start, b.bank)] = b;
+		if (b.start >= 0x8000) {
+			for (int a = b.start; a < b.end; a++) {
+				this.codeMap[a >> 6] |= 1L << a;
+			}
+			if (b.start < 0xc000) {
+				this.cartRamBlocks = true;
+			}
+		}
+	}
+
+	//Called by the MMU after every write
+	public void onWrite(int addr) {
+		if (addr < 0x8000) {
+			//MBC register - the ROM bank, cart RAM bank or cart RAM enable may have changed
+			this.epoch++;
+			if (this.cartRamBlocks) {
+				this.invalidateRange(0xa000, 0xc000);
+				this.cartRamBlocks = false;
+			}
+			return;
+		}
+		if (addr == 0xff70) {
+			//WRAM bank change
+			this.invalidateRange(0xd000, 0xe000);
+			return;
+		}
+		if (addr >= 0xe000 && addr < 0xfe00) {
+			//Echo RAM
+			addr -= 0x2000;
+		}
+		if ((this.codeMap[addr >> 6] & (1L << addr)) != 0) {
+			//Anything covering addr has to start at most MAX_BYTES before it. RAM blocks
+			//are all in bank 0, so each start address only has one slot to look in
+			for (int start = Math.max(addr - MAX_BYTES + 1, 0x8000); start <= addr; start++) {
+				int i = slot(start, 0);
+				Block b = this.table[i];
+				if (b != null && b.start == start && addr < b.end) {
+					this.table[i] = null;
+				}
+			}
+			//Nothing cached covers this byte anymore
+			this.codeMap[addr >> 6] &= ~(1L << addr);
+			this.epoch++;
+		}
+	}
+
+	private void invalidateRange(int from, int to) {
+		for (int i = 0; i < SIZE; i++) {
+			Block b = this.table[i];
+			if (b != null && b.start >= from && b.start < to) {
+				this.table[i] = null;
+			}
+		}
+		this.epoch++;
+	}
+
+	//A decoded basic block. Everything except the last instruction falls straight
+	//through, the last one may jump, call, return, halt or toggle interrupts
+	public static class Block {
+		final int start, end;
+		int bank;
+
+		final CPU.Instruction[] insts;
+		//Operand and the PC after each instruction
+		final int[] operands;
+		final int[] next;
+		final int length;
+
+		public Block(int start, int end, CPU.Instruction[] insts, int[] operands, int[] next, int length) {
+			this.start = start;
+			this.end = end;
+			this.insts = insts;
+			this.operands = operands;
+			this.next = next;
+			this.length = length;
+		}
+	}
+}
@@ -19,6 +19,20 @@ public class CPU {
 	//This flag is set when a register overflows
 	private static final int FLAG_CARRY = 1 << 4;
 
+	//Lazy flags. Most ALU results get their flags overwritten before anything looks at them,
+	//so these ops just remember their inputs and the flags get worked out when they're needed
+	private static final int LAZY_NONE = 0;
+	private static final int LAZY_ADD = 1;
+	private static final int LAZY_ADC = 2;
+	//Also used by CP, which is a SUB that doesn't store the result
+	private static final int LAZY_SUB = 3;
+	private static final int LAZY_SBC = 4;
+	private static final int LAZY_AND = 5;
+	//OR and XOR
+	private static final int LAZY_LOGIC = 6;
+	private static final int LAZY_INC = 7;
+	private static final int LAZY_DEC = 8;
+
 	//The next two arrays store information about the opcodes
 	//Each instruction takes 4 arguments: a disassembly string,
 	//The number of arguments (in bytes), the associated java function,
@@ -47,7 +61,7 @@ public class CPU {
 			new Instruction("LD C 0x%hex%", 1, this::ldiC, 8),
 			new Instruction("RRC A", 0, this::rrca, 4),
 
-			new Instruction("STOP", 0, this::nop, 4), //TODO implement?
+			new Instruction("STOP", 0, this::stop, 4),
 			new Instruction("LD DE 0x%hex%", 2, this::ldDE, 12),
 			new Instruction("LD (DE) A", 0, this::ldDEptrA, 8),
 			new Instruction("INC DE", 0, this::incDE, 8),
@@ -591,6 +605,16 @@ public class CPU {
 	private int pc;
 	private int sp;
 
+	//Holds the bytes following the current opcode, little endian (0 to 2 bytes)
+	private int operand;
+
+	//The last lazy ALU op and its inputs (or result, for AND/OR/XOR). While lazyOp isn't
+	//LAZY_NONE the flag bits in af are stale
+	private int lazyOp = LAZY_NONE;
+	private int lazyX;
+	private int lazyY;
+	private int lazyCarry;
+
 	// This should always be the MMU, but I'm letting it be an IAddressable
 	// because I can and it'll be helpful in testing
 	private IAddressable mem;
@@ -606,6 +630,9 @@ public class CPU {
 	private boolean queuedIntState = false;
 
 	private boolean doHaltBug = false;
+	//Where the halt bug gets reported, null for nowhere
+	private TraceSink trace;
+	private IO io;
 	//This scanner is used in the breakpoint function
 	private Scanner sc = new Scanner(System.in);
 
@@ -624,12 +651,49 @@ public class CPU {
 	private boolean inBP = false;
 	private int lastPC = 0;
 
+	//Decoded basic blocks for executeBlock, created the first time it runs
+	private BlockCache blocks;
+
+	//Opcodes that can jump, halt or change the interrupt flag - these always end a block
+	private static final int[] BLOCK_ENDS = { 0x10, 0x18, 0x20, 0x28, 0x30, 0x38, 0x76, 0xc0, 0xc2, 0xc3, 0xc4, 0xc7,
+			0xc8, 0xc9, 0xca, 0xcc, 0xcd, 0xcf, 0xd0, 0xd2, 0xd4, 0xd7, 0xd8, 0xd9, 0xda, 0xdc, 0xdf, 0xe7, 0xe9, 0xef,
+			0xf3, 0xf7, 0xfb, 0xff };
+	private static final boolean[] endsBlock = new boolean[0x100];
+
+	//Opcodes that read the flags, or only change some of them. The lazy flags have to be
+	//settled before these run. Everything in the extended table below 0x80 counts too
+	private static final int[] READS_FLAGS = { 0x04, 0x05, 0x07, 0x09, 0x0c, 0x0d, 0x0f, 0x14, 0x15, 0x17, 0x19, 0x1c,
+			0x1d, 0x1f, 0x20, 0x24, 0x25, 0x27, 0x28, 0x29, 0x2c, 0x2d, 0x2f, 0x30, 0x34, 0x35, 0x37, 0x38, 0x39, 0x3c,
+			0x3d, 0x3f, 0x88, 0x89, 0x8a, 0x8b, 0x8c, 0x8d, 0x8e, 0x8f, 0x98, 0x99, 0x9a, 0x9b, 0x9c, 0x9d, 0x9e, 0x9f,
+			0xc0, 0xc2, 0xc4, 0xc8, 0xca, 0xcc, 0xce, 0xd0, 0xd2, 0xd4, 0xd8, 0xda, 0xdc, 0xde, 0xe8, 0xf1, 0xf5, 0xf8 };
+
+	static {
+		for (int op : BLOCK_ENDS) {
+			endsBlock[op] = true;
+		}
+	}
+
 	public CPU(IAddressable m, Clock clock, boolean logInterrupts) {
 		this.mem = m;
 		this.c = clock;
+		for (int op : READS_FLAGS) {
+			this.instructions[op].readsFlags = true;
+		}
+		for (int op = 0; op < 0x80; op++) {
+			this.extInstructions[op].readsFlags = true;
+		}
 		this.reset();
 	}
 
+	//Only STOP uses this, for the speed switch
+	public void setIO(IO io) {
+		this.io = io;
+	}
+
+	public void setTraceSink(TraceSink trace) {
+		this.trace = trace;
+	}
+
 	//This function was used to encourage myself. Every time I ran the emulator,
 	//it would tell me how many instructions I had implemented
 	public int implemented() {
@@ -652,6 +716,7 @@ public class CPU {
 		// Set program counter to 0x100, right past the BIOS
 		this.pc = 0x100;
 		this.sp = 0xfffe;
+		this.lazyOp = LAZY_NONE;
 
 		//Set state to match what the BIOS would've set it to.
 		if ((this.mem.read(0x143) & 0x80) == 0x80) {
@@ -690,8 +755,14 @@ public class CPU {
 
 
 	private boolean didHaltBug = false;
-	//This function checks for a breakpoint, and runs the appropriate opcode
+
 	public void execute() {
+		this.execute(Long.MAX_VALUE);
+	}
+
+	//This function checks for a breakpoint, and runs the appropriate opcode. A halted CPU
+	//skips ahead, but never past limit
+	public void execute(long limit) {
 		if (this.breakPoints.indexOf(this.pc) > -1 || (this.inBP && this.lastPC != this.pc)) {
 			//TODO remove?
 			bp();
@@ -715,14 +786,116 @@ public class CPU {
 				this.doHaltBug = false;
 				didHaltBug = true;
 				this.pc--;
-				System.out.println(Integer.toHexString(this.pc));
+				if (this.trace != null) {
+					this.trace.trace("Halt bug at 0x" + Integer.toHexString(this.pc));
+				}
 			}
 			execOpcode(inst, prev);
 			didHaltBug = false;
 		}
 		else{
-			this.c.inc(1);
+			//Nothing can wake the CPU up before the next scheduled event, so skip straight to it
+			long wait = Math.min(this.c.getScheduler().nextDeadline(), limit) - this.c.getTicks();
+			if (wait > 0) {
+				this.c.inc((int) Math.min(wait, Integer.MAX_VALUE));
+			} else {
+				this.c.inc(1);
+			}
+		}
+	}
+
+	//Same as execute, but runs a whole basic block at once out of the block cache. The block
+	//stops early once the clock reaches limit or the scheduler's next deadline, so it never
+	//runs further than execute would have. Falls back to execute for anything unusual:
+	//halts, the halt bug, breakpoints, or code somewhere that can't be cached
+	public void executeBlock(long limit) {
+		if (this.haltFlag || this.doHaltBug || this.inBP || !this.breakPoints.isEmpty()) {
+			this.execute(limit);
+			return;
 		}
+		if (this.blocks == null) {
+			if (!(this.mem instanceof MMU)) {
+				this.execute(limit);
+				return;
+			}
+			this.blocks = new BlockCache((MMU) this.mem);
+			((MMU) this.mem).setBlockCache(this.blocks);
+		}
+		BlockCache.Block b = this.blocks.lookup(this.pc);
+		if (b == null) {
+			b = this.translateBlock(this.pc);
+			if (b == null) {
+				this.execute(limit);
+				return;
+			}
+			this.blocks.put(b);
+		}
+		runBlock(b, limit);
+	}
+
+	//Runs a decoded block. The clock is counted after every instruction like execOpcode does,
+	//so timer reads in the middle of a block see the right time. An EI/DI queued before the
+	//block takes effect after its first instruction, same as execOpcode
+	void runBlock(BlockCache.Block b, long limit) {
+		boolean flip = this.queuedIntChange;
+		int epoch = this.blocks.epoch;
+		Scheduler s = this.c.getScheduler();
+		Instruction[] insts = b.insts;
+		for (int i = 0; i < b.length; i++) {
+			this.pc = b.next[i];
+			this.operand = b.operands[i];
+			insts[i].execute();
+			this.c.inc(insts[i].baseTicks);
+			if (flip) {
+				this.flipInts();
+				flip = false;
+			}
+			if (this.blocks.epoch != epoch) {
+				//The block overwrote code or switched banks, the rest of it might be stale
+				return;
+			}
+			if (this.c.getTicks() >= Math.min(s.nextDeadline(), limit)) {
+				//Some hardware needs to catch up, the next block starts from here
+				return;
+			}
+		}
+	}
+
+	//Decodes instructions starting at addr until one that ends the block, or until the
+	//end of the memory region. Returns null if there's nothing worth caching
+	BlockCache.Block translateBlock(int addr) {
+		int end = BlockCache.regionEnd(addr);
+		if (end < 0) {
+			return null;
+		}
+		Instruction[] insts = new Instruction[BlockCache.MAX_BLOCK];
+		int[] operands = new int[BlockCache.MAX_BLOCK];
+		int[] next = new int[BlockCache.MAX_BLOCK];
+		int length = 0;
+		int a = addr;
+		while (length < BlockCache.MAX_BLOCK) {
+			int op = this.mem.read(a) & 0xff;
+			Instruction i = instructions[op];
+			if (!i.implemented(a) || a + 1 + i.argCount > end) {
+				break;
+			}
+			int operand = 0;
+			for (int n = 0; n < i.argCount; n++) {
+				operand |= (this.mem.read(a + 1 + n) & 0xff) << (n << 3);
+			}
+			a += 1 + i.argCount;
+			insts[length] = i;
+			operands[length] = operand;
+			next[length] = a;
+			length++;
+			if (endsBlock[op]) {
+				break;
+			}
+		}
+		if (length == 0) {
+			return null;
+		}
+		return new BlockCache.Block(addr, a, insts, operands, next, length);
 	}
 
 	//This function executes a specific opcode
@@ -730,26 +903,35 @@ public class CPU {
 		//System.out.printf("CP>0x%04x\n", base);
 		//Store if an interrupt switch is queued
 		boolean flip = this.queuedIntChange;
-		//Gets the arguments that follow the instruction
-		int[] args = this.readBytesFromMemory(instructions[inst].getArgCount(base));
-		if(didHaltBug){
-			System.out.println(inst);
-			System.out.println(args[0]);
+		Instruction i = instructions[inst];
+		//Decodes the arguments that follow the instruction straight into the operand register
+		this.operand = this.readOperand(i.argCount);
+		if (didHaltBug && this.trace != null) {
+			this.trace.trace("Halt bug ran " + inst + " with operand " + this.operand);
 		}
 		//Execute the opcode
-		instructions[inst].getMethod(base).execute(args);
+		i.execute();
 		//Update the timer
-		this.c.inc(instructions[inst].baseTicks);
+		this.c.inc(i.baseTicks);
 		if(flip){
-			this.intsEnabled = this.queuedIntState;
-			this.queuedIntChange = false;
+			this.flipInts();
+		}
+	}
+
+	//Applies a queued EI/DI. Interrupts only get checked at scheduler boundaries, so turning
+	//them on has to ask for one
+	private void flipInts() {
+		this.intsEnabled = this.queuedIntState;
+		this.queuedIntChange = false;
+		if (this.intsEnabled) {
+			this.c.getScheduler().requestBoundary();
 		}
 	}
 
 	//This function was used for debugging. It ran an extended instruction
 	public void execExtOpcode(int inst, int base) {
-		int[] args = this.readBytesFromMemory(extInstructions[inst].getArgCount(base));
-		extInstructions[inst].getMethod(base).execute(args);
+		this.operand = this.readOperand(extInstructions[inst].argCount);
+		extInstructions[inst].execute();
 		this.c.inc(extInstructions[inst].baseTicks);
 	}
 
@@ -768,7 +950,7 @@ public class CPU {
 						instructions[this.mem.read(this.pc) & 0xff].dissassemble(this.pc));
 				break;
 			} else if (s.equals("d")) { //'d' means dump
-				System.out.printf("AF: 0x%04x\n", af);
+				System.out.printf("AF: 0x%04x\n", this.getAF());
 				System.out.printf("BC: 0x%04x\n", bc);
 				System.out.printf("DE: 0x%04x\n", de);
 				System.out.printf("HL: 0x%04x\n", hl);
@@ -807,43 +989,43 @@ public class CPU {
 	}
 
 	//No op, does nothing
-	private void nop(int[] asdf) { //0x00
+	private void nop() { //0x00
 
 	}
 
 	//Reads a value from C, stores it in B
-	private void ldiBC(int[] args) { //0x01
-		this.bc = args[0] << 8 | args[1];
+	private void ldiBC() { //0x01
+		this.bc = this.operand;
 	}
 
 	//Writes the byte in register A into the address stored in BC
-	private void writeBCptrAbyte(int[] asdf) { //0x02
+	private void writeBCptrAbyte() { //0x02
 		this.mem.write(this.bc, (byte) (this.af >> 8)); //TODO need to reverse? This is little endian.
 	}
 
 	//Increments BC
-	private void incBC(int[] asdf) { //0x03
+	private void incBC() { //0x03
 		this.bc = (this.bc + 1) & 0xffff;
 	}
 
 	//Increments B
-	private void incB(int[] asdf) { //0x04
+	private void incB() { //0x04
 		this.bc = (this.bc & 0xff) | ((incByte(this.bc >> 8) & 0xff) << 8);
 	}
 
 	//Decrements B
-	private void decB(int[] asdf) { //0x05
+	private void decB() { //0x05
 		this.bc = (this.bc & 0xff) | ((dec(this.bc >> 8) & 0xff) << 8);
 	}
 
 	//Loads the next byte into B
-	private void ldiB(int[] b) { //0x06
-		this.bc = (b[0] << 8) | (this.bc & 0xff);
+	private void ldiB() { //0x06
+		this.bc = (this.operand << 8) | (this.bc & 0xff);
 	}
 
 	//Rotate left carry register A
 	//A bit shift left by one, but takes bit 7 and set bit 0 to it
-	private void rlca(int[] asdf) { //0x07
+	private void rlca() { //0x07
 		int carry = ((this.af >> 8) & 0x80) >> 7;
 		//Set carry flag if bit is carried
 		if (carry > 0) {
@@ -868,90 +1050,85 @@ public class CPU {
 	}
 
 	//Set stack pointer to next constant in memory
-	private void ldPtrSP(int[] ptr) { //0x08
-		this.mem.writeShort((ptr[0] << 8) | ptr[1], (short) this.sp);
+	private void ldPtrSP() { //0x08
+		this.mem.writeShort(this.operand, (short) this.sp);
 	}
 
 	//Add double registers HL and BC, store in HL
-	private void addHlBc(int[] asdf) { //0x09
+	private void addHlBc() { //0x09
 		this.hl = addShorts((short) this.hl, (short) this.bc) & 0xffff;
 	}
 
 	//Load the value in memory at address BC into register A
-	private void ldABCptr(int[] asdf) { //0x0a
+	private void ldABCptr() { //0x0a
 		this.af = (this.af & 0xff) | ((this.mem.read(this.bc) & 0xff) << 8);
 	}
 
 	//Decrement BC
-	private void decBC(int[] asdf) { //0x0b
+	private void decBC() { //0x0b
 		this.bc = (this.bc - 1) & 0xffff;
 	}
 
 	//Increment C
-	private void incC(int[] asdf) { //0x0c
+	private void incC() { //0x0c
 		this.bc = (this.bc & 0xff00) | (incByte(this.bc & 0xff) & 0xff);
 	}
 
 	//Decrement C
-	private void decC(int[] asdf) { //0x0d
+	private void decC() { //0x0d
 		this.bc = (this.bc & 0xff00) | (dec(this.bc & 0xff) & 0xff);
 	}
 
 	//Load next byte into register C
-	private void ldiC(int[] c) { //0x0e
-		this.bc = (c[0]) | (this.bc & 0xff00);
+	private void ldiC() { //0x0e
+		this.bc = (this.operand) | (this.bc & 0xff00);
 	}
 
 	//Rotate right carry register A
-	private void rrca(int[] asdf) { //0x0f
+	private void rrca() { //0x0f
 		this.af = ((this.rrc2((byte) (this.af >> 8)) & 0xff) << 8) | (this.af & 0xff);
 	}
 
-	//Load next constant into DE
-	private void stop(int[] val) { //0x10
-		int pval = this.mem.read(0xff4d);
-		if((pval & 0x1) == 0x1){
-			if((pval & 0x80) == 0x80){
-				this.mem.write(0xff4d, (byte)0);
-			}
-			else {
-				this.mem.write(0xff4d, (byte)0x80);
-			}
+	//Switches the GBC's speed if KEY1 asked for it. Low power mode isn't emulated, so
+	//otherwise this does nothing
+	private void stop() { //0x10
+		if (this.io != null) {
+			this.io.switchSpeed();
 		}
 	}
 
 	//Load next constant into DE
-	private void ldDE(int[] val) { //0x11
-		this.de = ((val[0] << 8) | val[1]);
+	private void ldDE() { //0x11
+		this.de = this.operand;
 	}
 
 	//Write byte in register A into the memory at the address stored in DE
-	private void ldDEptrA(int[] asdf) { //0x12
+	private void ldDEptrA() { //0x12
 		this.mem.write(this.de, (byte) (this.af >> 8));
 	}
 
 	//Increment DE
-	private void incDE(int[] asdf) { //0x13
+	private void incDE() { //0x13
 		this.de = (this.de + 1) & 0xffff;
 	}
 
 	//Increment D
-	private void incD(int[] asdf) { //0x14
+	private void incD() { //0x14
 		this.de = (this.de & 0xff) | ((incByte((this.de >> 8) & 0xff) & 0xff) << 8);
 	}
 
 	//Decrement D
-	private void decD(int[] asdf) { //0x15
+	private void decD() { //0x15
 		this.de = (this.de & 0xff) | ((dec((this.de >> 8) & 0xff) & 0xff) << 8);
 	}
 
 	//Set D to next constant
-	private void ldiD(int[] d) { //0x16
-		this.de = (d[0] << 8) | (this.de & 0xff);
+	private void ldiD() { //0x16
+		this.de = (this.operand << 8) | (this.de & 0xff);
 	}
 
 	//An alternate rotate left A operation
-	private void rl2A(int[] asdf) { //0x17
+	private void rl2A() { //0x17
 		int carry = (this.af & FLAG_CARRY) != 0 ? 1 : 0;
 
 		this.af &= 0xff00;
@@ -966,42 +1143,42 @@ public class CPU {
 	}
 
 	//Relative jump by next byte
-	private void relJump(int[] off) { //0x18
-		this.pc += (byte) off[0]; //Cast to byte to allow for negative jumps
+	private void relJump() { //0x18
+		this.pc += (byte) this.operand; //Cast to byte to allow for negative jumps
 	}
 
 	//Add registers HL and DE, store in HL
-	private void addHlDe(int[] asdf) { //0x19
+	private void addHlDe() { //0x19
 		this.hl = addShorts((short) this.hl, (short) this.de) & 0xffff;
 	}
 
 	//Load the value in memory at the pointer stored in DE into register A
-	private void ldADEptr(int[] asdf) { //0x1a
+	private void ldADEptr() { //0x1a
 		this.af = (this.af & 0xff) | ((this.mem.read(this.de) & 0xff) << 8);
 	}
 
 	//Decrement DE
-	private void decDE(int[] asdf) { //0x1b
+	private void decDE() { //0x1b
 		this.de = (this.de - 1) & 0xffff;
 	}
 
 	//Increment E
-	private void incE(int[] asdf) { //0x1c
+	private void incE() { //0x1c
 		this.de = (this.de & 0xff00) | (incByte(this.de & 0xff) & 0xff);
 	}
 
 	//Decrement E
-	private void decE(int[] asdf) { //0x1d
+	private void decE() { //0x1d
 		this.de = (this.de & 0xff00) | (dec(this.de & 0xff) & 0xff);
 	}
 
 	//Load next constant into register E
-	private void lde(int[] val) { //0x1e
-		this.de = (this.de & 0xff00) | (val[0]);
+	private void lde() { //0x1e
+		this.de = (this.de & 0xff00) | (this.operand);
 	}
 
 	//Alternate rotate right A
-	private void rr2a(int[] asdf) { //0x1f
+	private void rr2a() { //0x1f
 		int carry = (((this.af & FLAG_CARRY) != 0) ? 1 : 0) << 7;
 
 		if ((this.af & (0x01 << 8)) != 0) {
@@ -1021,9 +1198,9 @@ public class CPU {
 	}
 
 	//Relative jump if the zero flag is not set
-	private void relJumpNotZero(int[] off) { //0x20
+	private void relJumpNotZero() { //0x20
 		if ((this.af & FLAG_ZERO) == 0) {
-			this.relJump(off);
+			this.relJump();
 			this.c.inc(12);
 		} else {
 			this.c.inc(8);
@@ -1031,38 +1208,38 @@ public class CPU {
 	}
 
 	//Load next constant into HL
-	private void ldhl(int[] val) { //0x21
-		this.hl = ((val[0] << 8) | val[1]);
+	private void ldhl() { //0x21
+		this.hl = this.operand;
 	}
 
 	//Write value in A to memory at pointer stored in HL, increment HL
-	private void writeHLIptrAbyte(int[] asdf) { //0x22
+	private void writeHLIptrAbyte() { //0x22
 		this.mem.write(this.hl, (byte) (this.af >> 8)); //TODO need to reverse? This is little endian.
 		this.hl = (this.hl + 1) & 0xffff;
 	}
 
 	//Increment HL
-	private void incHL(int[] asdf) { //0x23
+	private void incHL() { //0x23
 		this.hl = (this.hl + 1) & 0xffff;
 	}
 
 	//Increment H
-	private void incH(int[] asdf) { //0x24
+	private void incH() { //0x24
 		this.hl = ((incByte((this.hl >> 8) & 0xff) & 0xff) << 8) | (this.hl & 0xff);
 	}
 
 	//Decrement H
-	private void decH(int[] asdf) { //0x25
+	private void decH() { //0x25
 		this.hl = ((dec((this.hl >> 8) & 0xff) & 0xff) << 8) | (this.hl & 0xff);
 	}
 
 	//Load next byte into H
-	private void ldHN(int[] val) { //0x26
-		this.hl = (this.hl & 0xff) | ((val[0] << 8) & 0xff00);
+	private void ldHN() { //0x26
+		this.hl = (this.hl & 0xff) | ((this.operand << 8) & 0xff00);
 	}
 
 	//No idea what this instruction's purpose is. Was a pain to code, though.
-	private void daa(int[] asdf) { //0x27
+	private void daa() { //0x27
 
 		int a = (this.af >> 8) & 0xff;
 		int f = this.af & 0xff;
@@ -1101,9 +1278,9 @@ public class CPU {
 	}
 
 	//Perform a relative jump if the zero flag is set
-	private void relJumpZero(int[] off) { //0x28
+	private void relJumpZero() { //0x28
 		if ((this.af & FLAG_ZERO) != 0) {
-			this.relJump(off);
+			this.relJump();
 			this.c.inc(12);
 		} else {
 			this.c.inc(8);
@@ -1111,46 +1288,46 @@ public class CPU {
 	}
 
 	//Double HL
-	private void addHlHl(int[] asdf) { //0x29
+	private void addHlHl() { //0x29
 		this.hl = addShorts((short) this.hl, (short) this.hl) & 0xffff;
 	}
 
 	//Load the value stored at the pointer stored in HL into register A, increment HL
-	private void ldIncHLPtr(int[] asdf) { //0x2a
+	private void ldIncHLPtr() { //0x2a
 		this.af = (this.af & 0xff) | ((this.mem.read(this.hl) & 0xff) << 8);
 		this.hl = (this.hl + 1) & 0xffff;
 	}
 
 	//Decrement HL
-	private void decHL(int[] asdf) { //0x2b
+	private void decHL() { //0x2b
 		this.hl = (this.hl - 1) & 0xffff;
 	}
 
 	//Increment L
-	private void incL(int[] asdf) { //0x2c
+	private void incL() { //0x2c
 		this.hl = (this.hl & 0xff00) | (incByte(this.hl & 0xff) & 0xff);
 	}
 
 	//Decrement L
-	private void decL(int[] asdf) { //0x2d
+	private void decL() { //0x2d
 		this.hl = (this.hl & 0xff00) | (dec(this.hl & 0xff) & 0xff);
 	}
 
 	//Load next byte into register L
-	private void ldiL(int[] c) { //0x2e
-		this.hl = (c[0]) | (this.hl & 0xff00);
+	private void ldiL() { //0x2e
+		this.hl = (this.operand) | (this.hl & 0xff00);
 	}
 
 	//Invert register A
-	private void cpl(int[] asdf) { //0x2f
+	private void cpl() { //0x2f
 		this.af = (this.af & 0xff) | ((~this.af) & 0xff00);
 		this.af |= (FLAG_NEG | FLAG_HALF_CARRY);
 	}
 
 	//Relative jump if carry flag not set
-	private void relJumpNoCarry(int[] off) { //0x30
+	private void relJumpNoCarry() { //0x30
 		if ((this.af & FLAG_CARRY) == 0) {
-			this.relJump(off);
+			this.relJump();
 			this.c.inc(12);
 		} else {
 			this.c.inc(8);
@@ -1158,46 +1335,46 @@ public class CPU {
 	}
 
 	//Load next value into stack pointer register
-	private void ldsp(int[] val) { //0x31
-		this.sp = ((val[0] << 8) | val[1]);
+	private void ldsp() { //0x31
+		this.sp = this.operand;
 	}
 
 	//Load value A into memory at pointer stored in HL, decrement HL
-	private void lddHlA(int[] asdf) { //0x32
+	private void lddHlA() { //0x32
 		this.mem.write(this.hl, (byte) (this.af >> 8));
 		this.hl = (this.hl - 1) & 0xffff;
 	}
 
 	//Increment the stack pointer
-	private void incSP(int[] asdf) { //0x33
+	private void incSP() { //0x33
 		this.sp = (this.sp + 1) & 0xffff;
 	}
 
 	//Increment the value in memory stored at pointer in HL
-	private void incHLptr(int[] asdf) { //0x34
+	private void incHLptr() { //0x34
 		this.mem.write(this.hl, (byte) incByte(this.mem.read(this.hl)));
 	}
 
 	//Decrement the value in memory stored at pointer in HL
-	private void decHLptr(int[] asdf) { //0x35
+	private void decHLptr() { //0x35
 		this.mem.write(this.hl, (byte) dec(this.mem.read(this.hl)));
 	}
 
 	//Write the next byte into memory at pointer stored in HL
-	private void writeHLptrNbyte(int[] asdf) { //0x36
-		this.mem.write(this.hl, (byte) asdf[0]); //TODO need to reverse? This is little endian.
+	private void writeHLptrNbyte() { //0x36
+		this.mem.write(this.hl, (byte) this.operand); //TODO need to reverse? This is little endian.
 	}
 
 	//Set the carry flag
-	private void setCarry(int[] asdf) { //0x37
+	private void setCarry() { //0x37
 		this.af |= FLAG_CARRY;
 		this.af &= ~(FLAG_NEG | FLAG_HALF_CARRY);
 	}
 
 	//Perform a relative jump if the carry flag isn't set
-	private void relJumpCarry(int[] off) { //0x38
+	private void relJumpCarry() { //0x38
 		if ((this.af & FLAG_CARRY) != 0) {
-			this.relJump(off);
+			this.relJump();
 			this.c.inc(12);
 		} else {
 			this.c.inc(8);
@@ -1205,38 +1382,38 @@ public class CPU {
 	}
 
 	//Add HL and SP, store in HL
-	private void addHlSp(int[] asdf) { //0x39
+	private void addHlSp() { //0x39
 		this.hl = this.addShorts((short) this.hl, (short) this.sp);
 	}
 
 	//Load value in memory stored at pointer in HL into register A, decrement HL
-	private void lddAHl(int[] asdf) { //0x3a
+	private void lddAHl() { //0x3a
 		this.af = ((this.mem.read(this.hl) & 0xff) << 8) | (this.af & 0xff);
 		this.hl = (this.hl - 1) & 0xffff;
 	}
 
 	//Decrement stack pointer
-	private void decSP(int[] asdf) { //0x3b
+	private void decSP() { //0x3b
 		this.sp = (this.sp - 1) & 0xffff;
 	}
 
 	//Increment A
-	private void incA(int[] asdf) { //0x3c
+	private void incA() { //0x3c
 		this.af = ((incByte((this.af >> 8) & 0xff) & 0xff) << 8) | (this.af & 0xff);
 	}
 
 	//Decrement A
-	private void decA /*Is a cult*/(int[] asdf) { //0x3d
+	private void decA /*Is a cult*/() { //0x3d
 		this.af = ((dec((this.af >> 8) & 0xff) & 0xff) << 8) | (this.af & 0xff);
 	}
 
 	//Load next constant into register A
-	private void lda(int[] val) { //0x3e
-		this.af = (this.af & 0xff) | (val[0] << 8);
+	private void lda() { //0x3e
+		this.af = (this.af & 0xff) | (this.operand << 8);
 	}
 
 	//Invert carry flag
-	private void ccf(int[] asdf) { //0x3f
+	private void ccf() { //0x3f
 		if ((this.af & FLAG_CARRY) > 0) {
 			this.af &= ~(FLAG_CARRY);
 		} else {
@@ -1247,199 +1424,199 @@ public class CPU {
 	}
 
 	//load various registers or memory values into other registers
-	private void ldbc(int[] asdf) { //0x41
+	private void ldbc() { //0x41
 		this.bc = (this.bc & 0xff) | ((this.bc & 0xff) << 8);
 	}
 
-	private void ldbd(int[] asdf) { //0x42
+	private void ldbd() { //0x42
 		this.bc = (this.bc & 0xff) | (this.de & 0xff00);
 	}
 
-	private void ldbe(int[] asdf) { //0x43
+	private void ldbe() { //0x43
 		this.bc = (this.bc & 0xff) | ((this.de << 8) & 0xff00);
 	}
 
-	private void ldbh(int[] asdf) { //0x44
+	private void ldbh() { //0x44
 		this.bc = (this.bc & 0xff) | (this.hl & 0xff00);
 	}
 
-	private void ldbl(int[] asdf) { //0x45
+	private void ldbl() { //0x45
 		this.bc = (this.bc & 0xff) | ((this.hl << 8) & 0xff00);
 	}
 
-	private void ldBHLptr(int[] asdf) { //0x46
+	private void ldBHLptr() { //0x46
 		this.bc = (this.bc & 0xff) | ((this.mem.read(this.hl) & 0xff) << 8);
 	}
 
-	private void ldba(int[] asdf) { //0x47
+	private void ldba() { //0x47
 		this.bc = (this.af & 0xff00) | (this.bc & 0x00ff);
 	}
 
-	private void ldcb(int[] asdf) { //0x48
+	private void ldcb() { //0x48
 		this.bc = (this.bc & 0xff00) | ((this.bc >> 8) & 0xff);
 	}
 
-	private void ldcd(int[] asdf) { //0x4a
+	private void ldcd() { //0x4a
 		this.bc = (this.bc & 0xff00) | ((this.de >> 8) & 0x00ff);
 	}
 
-	private void ldce(int[] asdf) { //0x4b
+	private void ldce() { //0x4b
 		this.bc = (this.bc & 0xff00) | ((this.de) & 0x00ff);
 	}
 
-	private void ldch(int[] asdf) { //0x4c
+	private void ldch() { //0x4c
 		this.bc = (this.bc & 0xff00) | ((this.hl >> 8) & 0xff);
 	}
 
-	private void ldcl(int[] asdf) { //0x4d
+	private void ldcl() { //0x4d
 		this.bc = (this.bc & 0xff00) | (this.hl & 0xff);
 	}
 
-	private void ldCHLptr(int[] asdf) { //0x4e
+	private void ldCHLptr() { //0x4e
 		this.bc = (this.bc & 0xff00) | (this.mem.read(this.hl) & 0xff);
 	}
 
-	private void ldCA(int[] asdf) { //0x4f
+	private void ldCA() { //0x4f
 		this.bc = (this.bc & 0xff00) | ((this.af >> 8) & 0xff);
 	}
 
-	private void ldDB(int[] asdf) { //0x50
+	private void ldDB() { //0x50
 		this.de = (this.de & 0xff) | (this.bc & 0xff00);
 	}
 
-	private void ldDC(int[] asdf) { //0x51
+	private void ldDC() { //0x51
 		this.de = (this.de & 0xff) | ((this.bc << 8) & 0xff00);
 	}
 
-	private void ldDe(int[] asdf) { //0x53
+	private void ldDe() { //0x53
 		this.de = (this.de & 0xff) | ((this.de << 8) & 0xff00);
 	}
 
-	private void ldDH(int[] asdf) { //0x54
+	private void ldDH() { //0x54
 		this.de = (this.de & 0xff) | (this.hl & 0xff00);
 	}
 
-	private void ldDL(int[] asdf) { //0x55
+	private void ldDL() { //0x55
 		this.de = (this.de & 0xff) | ((this.hl << 8) & 0xff00);
 	}
 
-	private void ldDHlPtr(int[] asdf) { //0x56
+	private void ldDHlPtr() { //0x56
 		this.de = (this.de & 0xff) | ((this.mem.read(this.hl) & 0xff) << 8);
 	}
 
-	private void ldDA(int[] asdf) { //0x57
+	private void ldDA() { //0x57
 		this.de = (this.de & 0xff) | (this.af & 0xff00);
 	}
 
-	private void ldEB(int[] asdf) { //0x58
+	private void ldEB() { //0x58
 		this.de = (this.de & 0xff00) | ((this.bc >> 8) & 0xff);
 	}
 
-	private void ldEC(int[] asdf) { //0x59
+	private void ldEC() { //0x59
 		this.de = (this.de & 0xff00) | ((this.bc) & 0xff);
 	}
 
-	private void ldED(int[] asdf) { //0x5a
+	private void ldED() { //0x5a
 		this.de = (this.de & 0xff00) | ((this.de >> 8) & 0xff);
 	}
 
-	private void ldEH(int[] asdf) { //0x5b
+	private void ldEH() { //0x5b
 		this.de = (this.de & 0xff00) | ((this.hl >> 8) & 0xff);
 	}
 
-	private void ldEL(int[] asdf) { //0x5d
+	private void ldEL() { //0x5d
 		this.de = (this.de & 0xff00) | (this.hl & 0xff);
 	}
 
-	private void ldEHlPtr(int[] asdf) { //0x5e
+	private void ldEHlPtr() { //0x5e
 		this.de = (this.de & 0xff00) | (this.mem.read(this.hl) & 0xff);
 	}
 
-	private void ldEA(int[] asdf) { //0x5f
+	private void ldEA() { //0x5f
 		this.de = (this.de & 0xff00) | ((this.af >> 8) & 0xff);
 	}
 
-	private void ldHB(int[] asdf) { //0x60
+	private void ldHB() { //0x60
 		this.hl = (this.hl & 0xff) | (this.bc & 0xff00);
 	}
 
-	private void ldHC(int[] asdf) { //0x61
+	private void ldHC() { //0x61
 		this.hl = (this.hl & 0xff) | ((this.bc << 8) & 0xff00);
 	}
 
-	private void ldHD(int[] asdf) { //0x62
+	private void ldHD() { //0x62
 		this.hl = (this.hl & 0xff) | (this.de & 0xff00);
 	}
 
-	private void ldHE(int[] asdf) { //0x63
+	private void ldHE() { //0x63
 		this.hl = (this.hl & 0xff) | ((this.de << 8) & 0xff00);
 	}
 
-	private void ldHL(int[] asdf) { //0x65
+	private void ldHL() { //0x65
 		this.hl = (this.hl & 0xff) | ((this.hl << 8) & 0xff00);
 	}
 
-	private void ldHHLPtr(int[] asdf) { //0x66
+	private void ldHHLPtr() { //0x66
 		this.hl = (this.hl & 0xff) | ((this.mem.read(this.hl) & 0xff) << 8);
 	}
 
-	private void ldHA(int[] asdf) { //0x67
+	private void ldHA() { //0x67
 		this.hl = (this.hl & 0xff) | (this.af & 0xff00);
 	}
 
-	private void ldLB(int[] asdf) { //0x68
+	private void ldLB() { //0x68
 		this.hl = (this.hl & 0xff00) | ((this.bc >> 8) & 0xff);
 	}
 
-	private void ldLC(int[] asdf) { //0x69
+	private void ldLC() { //0x69
 		this.hl = (this.hl & 0xff00) | (this.bc & 0xff);
 	}
 
-	private void ldLD(int[] asdf) { //0x6a
+	private void ldLD() { //0x6a
 		this.hl = (this.hl & 0xff00) | ((this.de >> 8) & 0xff);
 	}
 
-	private void ldLE(int[] asdf) { //0x6b
+	private void ldLE() { //0x6b
 		this.hl = (this.hl & 0xff00) | (this.de & 0xff);
 	}
 
-	private void ldLH(int[] asdf) { //0x6c
+	private void ldLH() { //0x6c
 		this.hl = (this.hl & 0xff00) | ((this.hl >> 8) & 0xff);
 	}
 
-	private void ldLHlPtr(int[] asdf) { //0x6e
+	private void ldLHlPtr() { //0x6e
 		this.hl = (this.hl & 0xff00) | (this.mem.read(this.hl) & 0xff);
 	}
 
-	private void ldLA(int[] asdf) { //0x6f
+	private void ldLA() { //0x6f
 		this.hl = (this.hl & 0xff00) | ((this.af >> 8) & 0xff);
 	}
 
-	private void ldHLPtrB(int[] asdf) { //0x70
+	private void ldHLPtrB() { //0x70
 		this.mem.write(this.hl, (byte) ((this.bc >> 8) & 0xff));
 	}
 
-	private void ldHLPtrC(int[] asdf) { //0x71
+	private void ldHLPtrC() { //0x71
 		this.mem.write(this.hl, (byte) (this.bc & 0xff));
 	}
 
-	private void ldHLPtrD(int[] asdf) { //0x72
+	private void ldHLPtrD() { //0x72
 		this.mem.write(this.hl, (byte) ((this.de >> 8) & 0xff));
 	}
 
-	private void ldHLPtrE(int[] asdf) { //0x73
+	private void ldHLPtrE() { //0x73
 		this.mem.write(this.hl, (byte) (this.de & 0xff));
 	}
 
-	private void ldHLPtrH(int[] asdf) { //0x74
+	private void ldHLPtrH() { //0x74
 		this.mem.write(this.hl, (byte) ((this.hl >> 8) & 0xff));
 	}
 
-	private void ldHLPtrL(int[] asdf) { //0x75
+	private void ldHLPtrL() { //0x75
 		this.mem.write(this.hl, (byte) (this.hl & 0xff));
 	}
 
-	private void halt(int[] asdf) { //0x76
+	private void halt() { //0x76
 		if (this.areIntsEnabled()) {
 			/*if (this.haltFlag == 3) {
 				this.haltFlag = 0;
@@ -1461,341 +1638,343 @@ public class CPU {
 			}
 			else{
 				this.doHaltBug = true;
-				System.out.println("Halt bug enabled");
+				if (this.trace != null) {
+					this.trace.trace("Halt bug enabled");
+				}
 			}
 		}
 	}
 
-	private void ldHLptrA(int[] asdf) { //0x77
+	private void ldHLptrA() { //0x77
 		this.mem.write(this.hl, (byte) (this.af >> 8));
 	}
 
-	private void ldab(int[] asdf) { //0x78
+	private void ldab() { //0x78
 		this.af = (this.bc & 0xff00) | (this.af & 0x00ff);
 	}
 
-	private void ldac(int[] asdf) { //0x79
+	private void ldac() { //0x79
 		this.af = ((this.bc & 0xff) << 8) | (this.af & 0x00ff);
 	}
 
-	private void ldAD(int[] asdf) { //0x7a
+	private void ldAD() { //0x7a
 		this.af = (this.af & 0xff) | (this.de & 0xff00);
 	}
 
-	private void ldAE(int[] asdf) { //0x7b
+	private void ldAE() { //0x7b
 		this.af = (this.af & 0xff) | ((this.de & 0xff) << 8);
 	}
 
-	private void ldAH(int[] asdf) { //0x7c
+	private void ldAH() { //0x7c
 		this.af = (this.af & 0xff) | (this.hl & 0xff00);
 	}
 
-	private void ldAL(int[] asdf) { //0x7d
+	private void ldAL() { //0x7d
 		this.af = (this.af & 0xff) | ((this.hl & 0xff) << 8);
 	}
 
-	private void ldAHlPtr(int[] asdf) { //0x7e
+	private void ldAHlPtr() { //0x7e
 		this.af = (this.af & 0xff) | ((this.mem.read(this.hl) & 0xff) << 8);
 	}
 
 	//Add various registers
-	private void addAB(int[] asdf) { //0x80
+	private void addAB() { //0x80
 		this.af = ((this.addBytes((byte) (this.af >> 8), (byte) (this.bc >> 8)) & 0xff) << 8) | (this.af & 0xff);
 	}
 
-	private void addAC(int[] asdf) { //0x81
+	private void addAC() { //0x81
 		this.af = (addBytes((byte) (this.af >> 8), (byte) (this.bc & 0xff)) << 8) | (this.af & 0xff);
 	}
 
-	private void addAD(int[] asdf) { //0x82
+	private void addAD() { //0x82
 		this.af = (addBytes((byte) (this.af >> 8), (byte) ((this.de >> 8) & 0xff)) << 8) | (this.af & 0xff);
 	}
 
-	private void addAE(int[] asdf) { //0x83
+	private void addAE() { //0x83
 		this.af = (addBytes((byte) (this.af >> 8), (byte) (this.de & 0xff)) << 8) | (this.af & 0xff);
 	}
 
-	private void addAH(int[] asdf) { //0x84
+	private void addAH() { //0x84
 		this.af = (addBytes((byte) (this.af >> 8), (byte) ((this.hl >> 8) & 0xff)) << 8) | (this.af & 0xff);
 	}
 
-	private void addAL(int[] asdf) { //0x85
+	private void addAL() { //0x85
 		this.af = (addBytes((byte) (this.af >> 8), (byte) (this.hl & 0xff)) << 8) | (this.af & 0xff);
 	}
 
-	private void addAPtr(int[] asdf) { //0x86
+	private void addAPtr() { //0x86
 		this.af = (addBytes((byte) (this.af >> 8), (byte) (this.mem.read(this.hl) & 0xff)) << 8) | (this.af & 0xff);
 	}
 
-	private void addAA(int[] asdf) { //0x87
+	private void addAA() { //0x87
 		this.af = (addBytes((byte) (this.af >> 8), (byte) (this.af >> 8)) << 8) | (this.af & 0xff);
 	}
 
 	//Add with 2 numbers and carry flag (A + B + 1 if carry)
-	private void adcAB(int[] asdf) { //0x88
+	private void adcAB() { //0x88
 		this.af = (((this.adcBytes((byte) ((this.af >> 8) & 0xff), (byte) ((this.bc >> 8) & 0xff))) & 0xff) << 8)
 				| (this.af & 0xff);
 	}
 
-	private void adcAC(int[] asdf) { //0x89
+	private void adcAC() { //0x89
 		this.af = (((this.adcBytes((byte) ((this.af >> 8) & 0xff), (byte) ((this.bc) & 0xff))) & 0xff) << 8)
 				| (this.af & 0xff);
 	}
 
-	private void adcAD(int[] asdf) { //0x8a
+	private void adcAD() { //0x8a
 		this.af = (((this.adcBytes((byte) ((this.af >> 8) & 0xff), (byte) ((this.de >> 8) & 0xff))) & 0xff) << 8)
 				| (this.af & 0xff);
 	}
 
-	private void adcAE(int[] asdf) { //0x8b
+	private void adcAE() { //0x8b
 		this.af = (((this.adcBytes((byte) ((this.af >> 8) & 0xff), (byte) ((this.de) & 0xff))) & 0xff) << 8)
 				| (this.af & 0xff);
 	}
 
-	private void adcAH(int[] asdf) { //0x8c
+	private void adcAH() { //0x8c
 		this.af = (((this.adcBytes((byte) ((this.af >> 8) & 0xff), (byte) ((this.hl >> 8) & 0xff))) & 0xff) << 8)
 				| (this.af & 0xff);
 	}
 
-	private void adcAL(int[] asdf) { //0x8d
+	private void adcAL() { //0x8d
 		this.af = (((this.adcBytes((byte) ((this.af >> 8) & 0xff), (byte) ((this.hl) & 0xff))) & 0xff) << 8)
 				| (this.af & 0xff);
 	}
 
-	private void adcAPtr(int[] asdf) { //0x8e
+	private void adcAPtr() { //0x8e
 		this.af = (((this.adcBytes((byte) ((this.af >> 8) & 0xff), this.mem.read(this.hl))) & 0xff) << 8)
 				| (this.af & 0xff);
 	}
 
-	private void adcAA(int[] asdf) { //0x8f
+	private void adcAA() { //0x8f
 		this.af = (((this.adcBytes((byte) ((this.af >> 8) & 0xff), (byte) ((this.af >> 8) & 0xff))) & 0xff) << 8)
 				| (this.af & 0xff);
 	}
 
 	//Subtract various registers
-	private void subAB(int[] asdf) { //0x90
+	private void subAB() { //0x90
 		this.af = (subBytes((byte) (this.af >> 8), (byte) ((this.bc >> 8) & 0xff)) << 8) | (this.af & 0xff);
 	}
 
-	private void subAC(int[] asdf) { //0x91
+	private void subAC() { //0x91
 		this.af = (subBytes((byte) (this.af >> 8), (byte) ((this.bc) & 0xff)) << 8) | (this.af & 0xff);
 	}
 
-	private void subAD(int[] asdf) { //0x92
+	private void subAD() { //0x92
 		this.af = (subBytes((byte) (this.af >> 8), (byte) ((this.de >> 8) & 0xff)) << 8) | (this.af & 0xff);
 	}
 
-	private void subAE(int[] asdf) { //0x93
+	private void subAE() { //0x93
 		this.af = (subBytes((byte) (this.af >> 8), (byte) ((this.de) & 0xff)) << 8) | (this.af & 0xff);
 	}
 
-	private void subAH(int[] asdf) { //0x94
+	private void subAH() { //0x94
 		this.af = (subBytes((byte) (this.af >> 8), (byte) ((this.hl >> 8) & 0xff)) << 8) | (this.af & 0xff);
 	}
 
-	private void subAL(int[] asdf) { //0x95
+	private void subAL() { //0x95
 		this.af = (subBytes((byte) (this.af >> 8), (byte) ((this.hl) & 0xff)) << 8) | (this.af & 0xff);
 	}
 
-	private void subAPtr(int[] asdf) { //0x96
+	private void subAPtr() { //0x96
 		this.af = (subBytes((byte) (this.af >> 8), this.mem.read(this.hl)) << 8) | (this.af & 0xff);
 	}
 
-	private void subAA(int[] asdf) { //0x93
+	private void subAA() { //0x93
 		this.af = (subBytes((byte) (this.af >> 8), (byte) (this.af >> 8)) << 8) | (this.af & 0xff);
 	}
 
 	//Subtract with carry
-	private void sbcAB(int[] asdf) { //0x98
+	private void sbcAB() { //0x98
 		this.af = (sbcBytes((byte) (this.af >> 8), (byte) (this.bc >> 8)) << 8) | (this.af & 0xff);
 	}
 
-	private void sbcAC(int[] asdf) { //0x99
+	private void sbcAC() { //0x99
 		this.af = (sbcBytes((byte) (this.af >> 8), (byte) ((this.bc) & 0xff)) << 8) | (this.af & 0xff);
 	}
 
-	private void sbcAD(int[] asdf) { //0x9a
+	private void sbcAD() { //0x9a
 		this.af = (sbcBytes((byte) (this.af >> 8), (byte) ((this.de >> 8) & 0xff)) << 8) | (this.af & 0xff);
 	}
 
-	private void sbcAE(int[] asdf) { //0x9b
+	private void sbcAE() { //0x9b
 		this.af = (sbcBytes((byte) (this.af >> 8), (byte) ((this.de) & 0xff)) << 8) | (this.af & 0xff);
 	}
 
-	private void sbcAH(int[] asdf) { //0x9c
+	private void sbcAH() { //0x9c
 		this.af = (sbcBytes((byte) (this.af >> 8), (byte) ((this.hl >> 8) & 0xff)) << 8) | (this.af & 0xff);
 	}
 
-	private void sbcAL(int[] asdf) { //0x9d
+	private void sbcAL() { //0x9d
 		this.af = (sbcBytes((byte) (this.af >> 8), (byte) ((this.hl) & 0xff)) << 8) | (this.af & 0xff);
 	}
 
-	private void sbcAPtr(int[] asdf) { //0x9e
+	private void sbcAPtr() { //0x9e
 		this.af = (sbcBytes((byte) (this.af >> 8), this.mem.read(this.hl)) << 8) | (this.af & 0xff);
 	}
 
-	private void sbcAA(int[] asdf) { //0x9f
+	private void sbcAA() { //0x9f
 		this.af = (sbcBytes((byte) (this.af >> 8), (byte) ((this.af >> 8) & 0xff)) << 8) | (this.af & 0xff);
 	}
 
 	//Bitwise and
-	private void andBA(int[] asdf) { //0xa0
+	private void andBA() { //0xa0
 		and((this.bc >> 8) & 0xff);
 	}
 
-	private void andCA(int[] asdf) { //0xa1
+	private void andCA() { //0xa1
 		and(this.bc & 0xff);
 	}
 
-	private void andDA(int[] asdf) { //0xa2
+	private void andDA() { //0xa2
 		and((this.de >> 8) & 0xff);
 	}
 
-	private void andEA(int[] asdf) { //0xa3
+	private void andEA() { //0xa3
 		and(this.de & 0xff);
 	}
 
-	private void andHA(int[] asdf) { //0xa4
+	private void andHA() { //0xa4
 		and((this.hl >> 8) & 0xff);
 	}
 
-	private void andLA(int[] asdf) { //0xa5
+	private void andLA() { //0xa5
 		and(this.hl & 0xff);
 	}
 
-	private void andPtr(int[] asdf) { //0xa6
+	private void andPtr() { //0xa6
 		this.and(this.mem.read(this.hl) & 0xff);
 	}
 
-	private void andAA(int[] asdf) { //0xa7
+	private void andAA() { //0xa7
 		and((this.af >> 8) & 0xff);
 	}
 
 	//Bitwise xor
-	private void xorBA(int[] asdf) { //0xa8
+	private void xorBA() { //0xa8
 		xor((this.bc >> 8) & 0xff);
 	}
 
-	private void xorCA(int[] asdf) { //0xa9
+	private void xorCA() { //0xa9
 		xor(this.bc & 0xff);
 	}
 
-	private void xorDA(int[] asdf) { //0xaa
+	private void xorDA() { //0xaa
 		xor((this.de >> 8) & 0xff);
 	}
 
-	private void xorEA(int[] asdf) { //0xab
+	private void xorEA() { //0xab
 		xor(this.de & 0xff);
 	}
 
-	private void xorHA(int[] asdf) { //0xac
+	private void xorHA() { //0xac
 		xor((this.hl >> 8) & 0xff);
 	}
 
-	private void xorLA(int[] asdf) { //0xad
+	private void xorLA() { //0xad
 		xor(this.hl & 0xff);
 	}
 
-	private void xorPtrA(int[] asdf) { //0xae
+	private void xorPtrA() { //0xae
 		xor(this.mem.read(this.hl) & 0xff);
 	}
 
-	private void xorAA(int[] asdf) { //0xaf
+	private void xorAA() { //0xaf
 		xor((this.af >> 8) & 0xff);
 	}
 
 	//bitwise or
-	private void orBA(int[] asdf) { //0xb0
+	private void orBA() { //0xb0
 		or((this.bc >> 8) & 0xff);
 	}
 
-	private void orCA(int[] asdf) { //0xb1
+	private void orCA() { //0xb1
 		or((this.bc) & 0xff);
 	}
 
-	private void orDA(int[] asdf) { //0xb2
+	private void orDA() { //0xb2
 		or((this.de >> 8) & 0xff);
 	}
 
-	private void orEA(int[] asdf) { //0xb3
+	private void orEA() { //0xb3
 		or((this.de) & 0xff);
 	}
 
-	private void orHA(int[] asdf) { //0xb4
+	private void orHA() { //0xb4
 		or((this.hl >> 8) & 0xff);
 	}
 
-	private void orLA(int[] asdf) { //0xb5
+	private void orLA() { //0xb5
 		or((this.hl) & 0xff);
 	}
 
-	private void orPtr(int[] asdf) { //0xb6
+	private void orPtr() { //0xb6
 		this.or(this.mem.read(this.hl) & 0xff);
 	}
 
-	private void orAA(int[] asdf) { //0xb7
+	private void orAA() { //0xb7
 		or((this.af >> 8) & 0xff);
 	}
 
 	//Compare A with B
-	private void cpb(int[] asdf) { //0xb8
+	private void cpb() { //0xb8
 		int a = this.af >> 8 & 0xff;
 		int b = (this.bc >> 8) & 0xff;
 		this.cp(a, b);
 	}
 
 	//Compare A with C
-	private void cpc(int[] asdf) { //0xb9
+	private void cpc() { //0xb9
 		int a = this.af >> 8 & 0xff;
 		int c = (this.bc) & 0xff;
 		this.cp(a, c);
 	}
 
 	//Compare A with D
-	private void cpd(int[] asdf) { //0xba
+	private void cpd() { //0xba
 		int a = this.af >> 8 & 0xff;
 		int d = (this.de >> 8) & 0xff;
 		this.cp(a, d);
 	}
 
 	//Compare A with E
-	private void cpe(int[] asdf) { //0xbb
+	private void cpe() { //0xbb
 		int a = this.af >> 8 & 0xff;
 		int e = (this.de) & 0xff;
 		this.cp(a, e);
 	}
 
 	//Compare A with H
-	private void cph(int[] asdf) { //0xbc
+	private void cph() { //0xbc
 		int a = this.af >> 8 & 0xff;
 		int h = (this.hl >> 8) & 0xff;
 		this.cp(a, h);
 	}
 
 	//Compare A with L
-	private void cpL(int[] asdf) { //0xbd
+	private void cpL() { //0xbd
 		int a = this.af >> 8 & 0xff;
 		int l = (this.hl) & 0xff;
 		this.cp(a, l);
 	}
 
 	//Compare A with memory value
-	private void cpPtr(int[] asdf) { //0xbe
+	private void cpPtr() { //0xbe
 		int a = this.af >> 8 & 0xff;
 		int val = this.mem.read(this.hl) & 0xff;
 		this.cp(a, val);
 	}
 
 	//Compare A with its self
-	private void cpa(int[] asdf) { //0xbf
+	private void cpa() { //0xbf
 		int a = this.af >> 8 & 0xff;
 		this.cp(a, a);
 	}
 
 	//Return of not zero
-	private void retIfNotZero(int[] asdf) { //0xc0
+	private void retIfNotZero() { //0xc0
 		if ((this.af & FLAG_ZERO) == 0) {
-			this.ret(asdf);
+			this.ret();
 			this.c.inc(20);
 		} else {
 			this.c.inc(8);
@@ -1803,14 +1982,14 @@ public class CPU {
 	}
 
 	//Pop a short from the stack, store in BC
-	private void popBC(int[] asdf) { //0xc1
+	private void popBC() { //0xc1
 		this.bc = this.popShort();
 	}
 
 	//Jump if not zero
-	private void jumpNotZero(int[] off) { //0xc2
+	private void jumpNotZero() { //0xc2
 		if ((this.af & FLAG_ZERO) == 0) {
-			this.pc = ((off[0] << 8) | off[1]) & 0xffff;
+			this.pc = this.operand & 0xffff;
 			this.c.inc(16);
 		} else {
 			this.c.inc(12);
@@ -1818,14 +1997,14 @@ public class CPU {
 	}
 
 	//Jump to address specified in next two bytes
-	private void jmpi(int[] addr) { //0xc3
-		this.pc = (addr[0] << 8 | addr[1]) & 0xffff;
+	private void jmpi() { //0xc3
+		this.pc = this.operand & 0xffff;
 	}
 
 	//Call function if zero flag not set
-	private void callIfNotZero(int[] args) { //0xc4
+	private void callIfNotZero() { //0xc4
 		if ((this.af & FLAG_ZERO) == 0) {
-			this.call(args);
+			this.call();
 			this.c.inc(24);
 		} else {
 			this.c.inc(12);
@@ -1833,25 +2012,25 @@ public class CPU {
 	}
 
 	//Push BC onto stack
-	private void pushBC(int[] asdf) { //0xc5
+	private void pushBC() { //0xc5
 		this.pushShort((short) this.bc);
 	}
 
 	//Add register A with a constant
-	private void addAN(int[] val) { //0c6
-		this.af = (addBytes((byte) (this.af >> 8), (byte) val[0]) << 8) | (this.af & 0xff);
+	private void addAN() { //0c6
+		this.af = (addBytes((byte) (this.af >> 8), (byte) this.operand) << 8) | (this.af & 0xff);
 	}
 
 	//Same as call 0
-	private void rst0(int[] asdf) { //0xc7
+	private void rst0() { //0xc7
 		this.pushShort((short) this.pc);
 		this.pc = 0;
 	}
 
 	//Returns if zero flag set
-	private void retIfZero(int[] asdf) { //0xc8
+	private void retIfZero() { //0xc8
 		if ((this.af & FLAG_ZERO) != 0) {
-			this.ret(asdf);
+			this.ret();
 			this.c.inc(20);
 		} else {
 			this.c.inc(8);
@@ -1860,14 +2039,14 @@ public class CPU {
 
 	//Returns from function by popping a short from the stack and setting the program
 	//counter to the popped value
-	private void ret(int[] addr) { //0xc9
+	private void ret() { //0xc9
 		this.pc = popShort() & 0xffff;
 	}
 
 	//Jump if zero flag set
-	private void jumpZero(int[] off) { //0xca
+	private void jumpZero() { //0xca
 		if ((this.af & FLAG_ZERO) != 0) {
-			this.pc = ((off[0] << 8) | off[1]) & 0xffff;
+			this.pc = this.operand & 0xffff;
 			this.c.inc(16);
 		} else {
 			this.c.inc(12);
@@ -1875,9 +2054,9 @@ public class CPU {
 	}
 
 	//Call if zero flag set
-	private void callIfZero(int[] args) { //0xcc
+	private void callIfZero() { //0xcc
 		if ((this.af & FLAG_ZERO) != 0) {
-			this.call(args);
+			this.call();
 			this.c.inc(24);
 		} else {
 			this.c.inc(12);
@@ -1886,27 +2065,27 @@ public class CPU {
 
 	//Call a function by pushing the current value of PC onto the stack, then
 	//sets the program counter to the next short in memory
-	private void call(int[] args) { //0xcd
-		short addr = (short) ((args[0] << 8) | args[1]);
+	private void call() { //0xcd
+		short addr = (short) this.operand;
 		pushShort((short) this.pc);
 		this.pc = addr & 0xffff;
 	}
 
 	//Add the next byte to register A with carry
-	private void adcA(int[] n) { //0xce
-		this.af = (((this.adcBytes((byte) ((this.af >> 8) & 0xff), (byte) n[0])) & 0xff) << 8) | (this.af & 0xff);
+	private void adcA() { //0xce
+		this.af = (((this.adcBytes((byte) ((this.af >> 8) & 0xff), (byte) this.operand)) & 0xff) << 8) | (this.af & 0xff);
 	}
 
 	//Same as call 8
-	private void rst8(int[] asdf) { //0xcf
+	private void rst8() { //0xcf
 		this.pushShort((short) this.pc);
 		this.pc = 0x8;
 	}
 
 	//Returns if the carry flag is not set
-	private void retIfNotCarry(int[] asdf) { //0xd0
+	private void retIfNotCarry() { //0xd0
 		if ((this.af & FLAG_CARRY) == 0) {
-			this.ret(asdf);
+			this.ret();
 			this.c.inc(20);
 		} else {
 			this.c.inc(8);
@@ -1914,14 +2093,14 @@ public class CPU {
 	}
 
 	//Stores popped value from stack in DE
-	private void popDE(int[] asdf) { //0xd1
+	private void popDE() { //0xd1
 		this.de = this.popShort();
 	}
 
 	//Jumps if the carry flag is not set
-	private void jumpNotCarry(int[] off) { //0xd2
+	private void jumpNotCarry() { //0xd2
 		if ((this.af & FLAG_CARRY) == 0) {
-			this.pc = ((off[0] << 8) | off[1]) & 0xffff;
+			this.pc = this.operand & 0xffff;
 			this.c.inc(16);
 		} else {
 			this.c.inc(12);
@@ -1929,9 +2108,9 @@ public class CPU {
 	}
 
 	//Calls if the carry flag is not set
-	private void callIfNotCarry(int[] args) { //0xd4
+	private void callIfNotCarry() { //0xd4
 		if ((this.af & FLAG_CARRY) == 0) {
-			this.call(args);
+			this.call();
 			this.c.inc(24);
 		} else {
 			this.c.inc(12);
@@ -1939,25 +2118,25 @@ public class CPU {
 	}
 
 	//Pushes DE onto the stack
-	private void pushDE(int[] adsf) { //0xd5
+	private void pushDE() { //0xd5
 		this.pushShort((short) this.de);
 	}
 
 	//Subtracts the next byte from A
-	private void subA(int[] n) { //0xd6
-		this.af = ((subBytes((byte) ((this.af >> 8) & 0xff), (byte) (n[0])) & 0xff) << 8) | (this.af & 0xff);
+	private void subA() { //0xd6
+		this.af = ((subBytes((byte) ((this.af >> 8) & 0xff), (byte) (this.operand)) & 0xff) << 8) | (this.af & 0xff);
 	}
 
 	//Same as call 0x10
-	private void rst10(int[] asdf) { //0xd7
+	private void rst10() { //0xd7
 		this.pushShort((short) this.pc);
 		this.pc = 0x10;
 	}
 
 	//Returns if carry flag is set
-	private void retIfCarry(int[] asdf) { //0xd8
+	private void retIfCarry() { //0xd8
 		if ((this.af & FLAG_CARRY) > 0) {
-			this.ret(asdf);
+			this.ret();
 			this.c.inc(20);
 		} else {
 			this.c.inc(8);
@@ -1965,16 +2144,17 @@ public class CPU {
 	}
 
 	//Returns from an interrupt by enabling interrupts and returning as normal
-	private void reti(int[] asdf) { //0xd9
+	private void reti() { //0xd9
 		this.intsEnabled = true;
+		this.c.getScheduler().requestBoundary();
 		this.inInterrupt = false;
 		this.pc = this.popShort() & 0xffff;
 	}
 
 	//Jump if carry flag is set
-	private void jumpCarry(int[] off) { //0xda
+	private void jumpCarry() { //0xda
 		if ((this.af & FLAG_CARRY) != 0) {
-			this.pc = ((off[0] << 8) | off[1]) & 0xffff;
+			this.pc = this.operand & 0xffff;
 			this.c.inc(16);
 		} else {
 			this.c.inc(12);
@@ -1982,9 +2162,9 @@ public class CPU {
 	}
 
 	//Call function if carry flag is set
-	private void callIfCarry(int[] args) { //0xdc
+	private void callIfCarry() { //0xdc
 		if ((this.af & FLAG_CARRY) != 0) {
-			this.call(args);
+			this.call();
 			this.c.inc(24);
 		} else {
 			this.c.inc(12);
@@ -1992,142 +2172,142 @@ public class CPU {
 	}
 
 	//Subtract next byte from A with carry
-	private void sbcA(int[] n) { //0xde
-		this.af = (sbcBytes((byte) (this.af >> 8), (byte) n[0]) << 8) | (this.af & 0xff);
+	private void sbcA() { //0xde
+		this.af = (sbcBytes((byte) (this.af >> 8), (byte) this.operand) << 8) | (this.af & 0xff);
 	}
 
 	//Same as call 0x18
-	private void rst18(int[] asdf) { //0xdf
+	private void rst18() { //0xdf
 		this.pushShort((short) this.pc);
 		this.pc = 0x18;
 	}
 
 	//Writes value in A to memory address 0xff00 + the next byte
-	private void ldhNA(int[] off) { //0xe0
-		this.mem.write(0xff00 | off[0], (byte) (this.af >> 8));
+	private void ldhNA() { //0xe0
+		this.mem.write(0xff00 | this.operand, (byte) (this.af >> 8));
 	}
 
 	//Pops value from stack onto HL
-	private void popHL(int[] asdf) { //0xe1
+	private void popHL() { //0xe1
 		this.hl = this.popShort() & 0xffff;
 	}
 
 	//Loads A into memory address 0xff00 + value in register C
-	private void ldhCA(int[] asdf) { //0xe2
+	private void ldhCA() { //0xe2
 		this.mem.write(0xff00 | (this.bc & 0xff), (byte) (this.af >> 8));
 	}
 
 	//Push HL to stack
-	private void pushHL(int[] asdf) { //0xe5
+	private void pushHL() { //0xe5
 		this.pushShort((short) this.hl);
 	}
 
 	//And A with next byte
-	private void andi(int[] val) { //0xe6
-		and(val[0]);
+	private void andi() { //0xe6
+		and(this.operand);
 	}
 
 	//Same as call 0x20
-	private void rst20(int[] asdf) { //0xe7
+	private void rst20() { //0xe7
 		this.pushShort((short) this.pc);
 		this.pc = 0x20;
 	}
 
 	//Adds next byte to stack pointer
-	private void addSpN(int[] n) { //0xe8
-		this.sp = addShorts2((short) this.sp, (short) n[0]);
+	private void addSpN() { //0xe8
+		this.sp = addShorts2((short) this.sp, (short) this.operand);
 	}
 
 	//Jumps to value stored in HL
-	private void jmpHL(int[] asdf) { //0xe9
+	private void jmpHL() { //0xe9
 		this.pc = this.hl;
 	}
 
 	//Loads A into memory address stored in next short
-	private void ldNA(int[] addr) { //0xea
-		this.mem.write((addr[0] << 8) | (addr[1]), (byte) (this.af >> 8));
+	private void ldNA() { //0xea
+		this.mem.write(this.operand, (byte) (this.af >> 8));
 	}
 
 	//Xors A with next byte
-	private void xorNA(int[] n) { //0xe
-		xor(n[0]);
+	private void xorNA() { //0xe
+		xor(this.operand);
 	}
 
 	//Same as call 0x28
-	private void rst28(int[] asdf) { //0xef
+	private void rst28() { //0xef
 		this.pushShort((short) this.pc);
 		this.pc = 0x28;
 	}
 
 	//Loads value from 0xff00 + next byte into A
-	private void ldhAN(int[] off) { //0xf0
-		this.af = ((mem.read(0xff00 | (off[0] & 0xff)) & 0xff) << 8) | (this.af & 0xff);
+	private void ldhAN() { //0xf0
+		this.af = ((mem.read(0xff00 | (this.operand & 0xff)) & 0xff) << 8) | (this.af & 0xff);
 	}
 
 	//Pops from stack onto AF
-	private void popAF(int[] asdf) { //0xf1
+	private void popAF() { //0xf1
 		this.af = this.popShort() & 0xfff0;
 	}
 
 	//Load value from memory address 0xff00 + register C, store in register A
-	private void ldAUpper(int[] asdf) { //0xf2
+	private void ldAUpper() { //0xf2
 		this.af = ((this.mem.read(0xff00 | (this.bc & 0xff)) << 8) & 0xff00) | (this.af & 0xff);
 	}
 
 	//Disable interrupts
-	private void di(int[] asdf) { //0xf3
+	private void di() { //0xf3
 		//this.intsEnabled = false;
 		this.queuedIntChange = true;
 		this.queuedIntState = false;
 	}
 
 	//Push AF onto stack
-	private void pushAF(int[] asdf) { //0xf5
+	private void pushAF() { //0xf5
 		this.pushShort((short) this.af);
 	}
 
 	//Ors next byte with register A
-	private void orN(int[] val) { //0xf6
-		this.or(val[0]);
+	private void orN() { //0xf6
+		this.or(this.operand);
 	}
 
 	//Same as call 0x30
-	private void rst30(int[] asdf) { //0xf7
+	private void rst30() { //0xf7
 		this.pushShort((short) this.pc);
 		this.pc = 0x30;
 	}
 
 	//Add stack pointer and next byte, store in HL
-	private void ldHlSpN(int[] n) { //0xf8
-		this.hl = this.addShorts2((short) this.sp, (short) (n[0] & 0xff)) & 0xffff;
+	private void ldHlSpN() { //0xf8
+		this.hl = this.addShorts2((short) this.sp, (short) (this.operand & 0xff)) & 0xffff;
 	}
 
 	//Load HL into stack pointer
-	private void ldSpHl(int[] asdf) { //0xf9
+	private void ldSpHl() { //0xf9
 		this.sp = this.hl;
 	}
 
 	//Loads next value stored in the location specified by next 2 bytes into A
-	private void ldPtrA(int[] ptr) { //0xfa
-		this.af = (this.af & 0xff) | ((this.mem.read(((ptr[0] << 8) | ptr[1])) & 0xff) << 8);
+	private void ldPtrA() { //0xfa
+		this.af = (this.af & 0xff) | ((this.mem.read(this.operand) & 0xff) << 8);
 	}
 
 	//Enable interrupts
-	private void ei(int[] asdf) { //0xfb
+	private void ei() { //0xfb
 		//this.intsEnabled = true;
 		this.queuedIntChange = true;
 		this.queuedIntState = true;
 	}
 
 	//Compare A with next byte
-	private void cpn(int[] n) { //0xfe
+	private void cpn() { //0xfe
 		int a = this.af >> 8 & 0xff;
-		int b = n[0];
+		int b = this.operand;
 		this.cp(a, b);
 	}
 
 	//Same as call 0x38
-	private void rst38(int[] asdf) { //0xff
+	private void rst38() { //0xff
 		this.pushShort((short) this.pc);
 		this.pc = 0x38;
 	}
@@ -2137,1037 +2317,1037 @@ public class CPU {
 	 */
 
 	//Rotate left with carry
-	private void rlcB(int[] asdf) { //0xcb00
+	private void rlcB() { //0xcb00
 		this.bc = ((this.rlc((byte) ((this.bc >> 8) & 0xff)) & 0xff) << 8) | (this.bc & 0xff);
 	}
 
-	private void rlcC(int[] asdf) { //0xcb01
+	private void rlcC() { //0xcb01
 		this.bc = ((this.rlc((byte) ((this.bc) & 0xff)) & 0xff)) | (this.bc & 0xff00);
 	}
 
-	private void rlcD(int[] asdf) { //0xcb02
+	private void rlcD() { //0xcb02
 		this.de = ((this.rlc((byte) ((this.de >> 8) & 0xff)) & 0xff) << 8) | (this.de & 0xff);
 	}
 
-	private void rlcE(int[] asdf) { //0xcb03
+	private void rlcE() { //0xcb03
 		this.de = ((this.rlc((byte) ((this.de) & 0xff)) & 0xff)) | (this.de & 0xff00);
 	}
 
-	private void rlcH(int[] asdf) { //0xcb04
+	private void rlcH() { //0xcb04
 		this.hl = ((this.rlc((byte) ((this.hl >> 8) & 0xff)) & 0xff) << 8) | (this.hl & 0xff);
 	}
 
-	private void rlcL(int[] asdf) { //0xcb05
+	private void rlcL() { //0xcb05
 		this.hl = ((this.rlc((byte) ((this.hl) & 0xff)) & 0xff)) | (this.hl & 0xff00);
 	}
 
-	private void rlcPtr(int[] asdf) { //0xcb06
+	private void rlcPtr() { //0xcb06
 		this.mem.write(this.hl, (byte) this.rlc(this.mem.read(this.hl)));
 	}
 
-	private void rlcA(int[] asdf) { //0xcb07
+	private void rlcA() { //0xcb07
 		this.af = ((this.rlc((byte) ((this.af >> 8) & 0xff)) & 0xff) << 8) | (this.af & 0xff);
 	}
 
 	//Rotate right with carry
-	private void rrcB(int[] asdf) { //0xcb08
+	private void rrcB() { //0xcb08
 		this.bc = (this.bc & 0xff) | ((this.rrc((byte) ((this.bc >> 8) & 0xff)) & 0xff) << 8);
 	}
 
-	private void rrcC(int[] asdf) { //0xcb09
+	private void rrcC() { //0xcb09
 		this.bc = (this.bc & 0xff00) | (this.rrc((byte) (this.bc & 0xff)) & 0xff);
 	}
 
-	private void rrcD(int[] asdf) { //0xcb0a
+	private void rrcD() { //0xcb0a
 		this.de = (this.de & 0xff) | ((this.rrc((byte) ((this.de >> 8) & 0xff)) & 0xff) << 8);
 	}
 
-	private void rrcE(int[] asdf) { //0xcb0b
+	private void rrcE() { //0xcb0b
 		this.de = (this.de & 0xff00) | (this.rrc((byte) (this.de & 0xff)) & 0xff);
 	}
 
-	private void rrcH(int[] asdf) { //0xcb0c
+	private void rrcH() { //0xcb0c
 		this.hl = (this.hl & 0xff) | ((this.rrc((byte) ((this.hl >> 8) & 0xff)) & 0xff) << 8);
 	}
 
-	private void rrcL(int[] asdf) { //0xcb0d
+	private void rrcL() { //0xcb0d
 		this.hl = (this.hl & 0xff00) | ((this.rrc((byte) ((this.hl) & 0xff)) & 0xff));
 	}
 
-	private void rrcPtr(int[] asdf) { //0xcb0e
+	private void rrcPtr() { //0xcb0e
 		this.mem.write(this.hl, (byte) this.rrc(this.mem.read(this.hl)));
 	}
 
-	private void rrcA(int[] asdf) { //0xcb0f
+	private void rrcA() { //0xcb0f
 		this.af = ((this.rrc((byte) ((this.af >> 8) & 0xff)) & 0xff) << 8) | (this.af & 0xff);
 	}
 
 	//Rotate left
-	private void rlB(int[] asdf) { //0xcb10
+	private void rlB() { //0xcb10
 		this.bc = (this.bc & 0xff) | (this.rl((byte) ((this.bc >> 8) & 0xff)) << 8);
 	}
 
-	private void rlC(int[] asdf) { //0xcb11
+	private void rlC() { //0xcb11
 		this.bc = (this.bc & 0xff00) | this.rl((byte) ((this.bc) & 0xff));
 	}
 
-	private void rlD(int[] asdf) { //0xcb12
+	private void rlD() { //0xcb12
 		this.de = (this.de & 0xff) | ((this.rl((byte) ((this.de >> 8) & 0xff)) << 8) & 0xff00);
 	}
 
-	private void rlE(int[] asdf) { //0xcb13
+	private void rlE() { //0xcb13
 		this.de = (this.de & 0xff00) | this.rl((byte) ((this.de) & 0xff));
 	}
 
-	private void rlH(int[] asdf) { //0xcb14
+	private void rlH() { //0xcb14
 		this.hl = (this.hl & 0xff) | ((this.rl((byte) ((this.hl >> 8) & 0xff)) << 8) & 0xff00);
 	}
 
-	private void rlL(int[] asdf) { //0xcb15
+	private void rlL() { //0xcb15
 		this.hl = (this.hl & 0xff00) | this.rl((byte) ((this.hl) & 0xff));
 	}
 
-	private void rlPtr(int[] asdf) { //0xcb16
+	private void rlPtr() { //0xcb16
 		this.mem.write(this.hl, (byte) this.rl(this.mem.read(this.hl)));
 	}
 
-	private void rlA(int[] asdf) { //0xcb17
+	private void rlA() { //0xcb17
 		this.af = ((this.rl((byte) ((this.af >> 8) & 0xff)) << 8) & 0xff00) | (this.af & 0xff);
 	}
 
 	//Rotate right
-	private void rrb(int[] asdf) { //0xcb18
+	private void rrb() { //0xcb18
 		this.bc = ((this.rr((byte) (this.bc >> 8)) & 0xff) << 8) | (this.bc & 0xff);
 	}
 
-	private void rrc(int[] asdf) { //0xcb19
+	private void rrc() { //0xcb19
 		this.bc = ((this.rr((byte) (this.bc & 0xff)) & 0xff)) | (this.bc & 0xff00);
 	}
 
-	private void rrd(int[] asdf) { //0xcb1a
+	private void rrd() { //0xcb1a
 		this.de = ((this.rr((byte) (this.de >> 8)) & 0xff) << 8) | (this.de & 0xff);
 	}
 
-	private void rre(int[] asdf) { //0xcb1b
+	private void rre() { //0xcb1b
 		this.de = ((this.rr((byte) (this.de & 0xff)) & 0xff)) | (this.de & 0xff00);
 	}
 
-	private void rrh(int[] asdf) { //0xcb1c
+	private void rrh() { //0xcb1c
 		this.hl = ((this.rr((byte) (this.hl >> 8)) & 0xff) << 8) | (this.hl & 0xff);
 	}
 
-	private void rrl(int[] asdf) { //0xcb1d
+	private void rrl() { //0xcb1d
 		this.hl = ((this.rr((byte) (this.hl & 0xff)) & 0xff)) | (this.hl & 0xff00);
 	}
 
-	private void rrptr(int[] asdf) { //0xcb1e
+	private void rrptr() { //0xcb1e
 		this.mem.write(this.hl, (byte) this.rr(this.mem.read(this.hl)));
 	}
 
-	private void rra(int[] asdf) { //0xcb1f
+	private void rra() { //0xcb1f
 		this.af = ((this.rr((byte) (this.af >> 8)) & 0xff) << 8) | (this.af & 0xff);
 	}
 
 	//Arithmetic shift left
-	private void slaB(int[] asdf) { //0xcb20
+	private void slaB() { //0xcb20
 		this.bc = (this.bc & 0xff) | ((this.sla((byte) ((this.bc >> 8) & 0xff)) & 0xff) << 8);
 	}
 
-	private void slaC(int[] asdf) { //0xcb21
+	private void slaC() { //0xcb21
 		this.bc = (this.bc & 0xff00) | (this.sla((byte) (this.bc & 0xff)) & 0xff);
 	}
 
-	private void slaD(int[] asdf) { //0xcb22
+	private void slaD() { //0xcb22
 		this.de = (this.de & 0xff) | ((this.sla((byte) ((this.de >> 8) & 0xff)) & 0xff) << 8);
 	}
 
-	private void slaE(int[] asdf) { //0xcb23
+	private void slaE() { //0xcb23
 		this.de = (this.de & 0xff00) | (this.sla((byte) (this.de & 0xff)) & 0xff);
 	}
 
-	private void slaH(int[] asdf) { //0xcb24
+	private void slaH() { //0xcb24
 		this.hl = (this.hl & 0xff) | ((this.sla((byte) ((this.hl >> 8) & 0xff)) & 0xff) << 8);
 	}
 
-	private void slaL(int[] asdf) { //0xcb25
+	private void slaL() { //0xcb25
 		this.hl = (this.hl & 0xff00) | (this.sla((byte) (this.hl & 0xff)) & 0xff);
 	}
 
-	private void slaPtr(int[] asdf) { //0xcb26
+	private void slaPtr() { //0xcb26
 		this.mem.write(this.hl, (byte) this.sla(this.mem.read(this.hl)));
 	}
 
-	private void slaA(int[] asdf) { //0xcb27
+	private void slaA() { //0xcb27
 		this.af = ((this.sla((byte) (this.af >> 8)) & 0xff) << 8) | (this.af & 0xff);
 	}
 
 	//Arithmetic shift right
-	private void sraB(int[] asdf) { //0xcb28
+	private void sraB() { //0xcb28
 		this.bc = (this.bc & 0xff) | (this.sra((byte) ((this.bc >> 8) & 0xff)) << 8);
 	}
 
-	private void sraC(int[] asdf) { //0xcb29
+	private void sraC() { //0xcb29
 		this.bc = (this.bc & 0xff00) | (this.sra((byte) ((this.bc) & 0xff)));
 	}
 
-	private void sraD(int[] asdf) { //0xcb2a
+	private void sraD() { //0xcb2a
 		this.de = (this.de & 0xff) | (this.sra((byte) ((this.de >> 8) & 0xff)) << 8);
 	}
 
-	private void sraE(int[] asdf) { //0xcb2b
+	private void sraE() { //0xcb2b
 		this.de = (this.de & 0xff00) | (this.sra((byte) ((this.de) & 0xff)));
 	}
 
-	private void sraH(int[] asdf) { //0xcb2c
+	private void sraH() { //0xcb2c
 		this.hl = (this.hl & 0xff) | (this.sra((byte) ((this.hl >> 8) & 0xff)) << 8);
 	}
 
-	private void sraL(int[] asdf) { //0xcb2d
+	private void sraL() { //0xcb2d
 		this.hl = (this.hl & 0xff00) | (this.sra((byte) ((this.hl) & 0xff)));
 	}
 
-	private void sraPtr(int[] asdf) { //0xcb2e
+	private void sraPtr() { //0xcb2e
 		this.mem.write(this.hl, (byte) this.sra(this.mem.read(this.hl)));
 	}
 
-	private void sraA(int[] asdf) { //0xcb2f
+	private void sraA() { //0xcb2f
 		this.af = (this.sra((byte) ((this.af >> 8) & 0xff)) << 8) | (this.af & 0xff);
 	}
 
 	//Swap nibbles
-	private void swapB(int[] asdf) { //0xcb30
+	private void swapB() { //0xcb30
 		this.bc = ((swap((byte) ((this.bc >> 8) & 0xff)) & 0xff) << 8) | (this.bc & 0xff);
 	}
 
-	private void swapC(int[] asdf) { //0xcb31
+	private void swapC() { //0xcb31
 		this.bc = (swap((byte) (this.bc & 0xff)) & 0xff) | (this.bc & 0xff00);
 	}
 
-	private void swapD(int[] asdf) { //0xcb32
+	private void swapD() { //0xcb32
 		this.de = ((swap((byte) ((this.de >> 8) & 0xff)) & 0xff) << 8) | (this.de & 0xff);
 	}
 
-	private void swapE(int[] asdf) { //0xcb33
+	private void swapE() { //0xcb33
 		this.de = (swap((byte) (this.de & 0xff)) & 0xff) | (this.de & 0xff00);
 	}
 
-	private void swapH(int[] asdf) { //0xcb34
+	private void swapH() { //0xcb34
 		this.hl = ((swap((byte) ((this.hl >> 8) & 0xff)) & 0xff) << 8) | (this.hl & 0xff);
 	}
 
-	private void swapL(int[] asdf) { //0xcb35
+	private void swapL() { //0xcb35
 		this.hl = (swap((byte) (this.hl & 0xff)) & 0xff) | (this.hl & 0xff00);
 	}
 
-	private void swapPtr(int[] asdf) { //0xcb36
+	private void swapPtr() { //0xcb36
 		this.mem.write(this.hl, (byte) (swap(this.mem.read(this.hl)) & 0xff));
 	}
 
-	private void swapA(int[] asdf) { //0xcb37
+	private void swapA() { //0xcb37
 		this.af = ((swap((byte) (this.af >> 8)) & 0xff) << 8) | (this.af & 0xff);
 	}
 
 	//Logical shift right
-	private void srlB(int[] asdf) { //0xcb39
+	private void srlB() { //0xcb39
 		this.bc = (this.srl((byte) (this.bc >> 8)) << 8) | (this.bc & 0xff);
 	}
 
-	private void srlC(int[] asdf) { //0xcb39
+	private void srlC() { //0xcb39
 		this.bc = (this.srl((byte) (this.bc))) | (this.bc & 0xff00);
 	}
 
-	private void srlD(int[] asdf) { //0xcb3a
+	private void srlD() { //0xcb3a
 		this.de = (this.srl((byte) (this.de >> 8)) << 8) | (this.de & 0xff);
 	}
 
-	private void srlE(int[] asdf) { //0xcb3b
+	private void srlE() { //0xcb3b
 		this.de = (this.srl((byte) (this.de))) | (this.de & 0xff00);
 	}
 
-	private void srlH(int[] asdf) { //0xcb3c
+	private void srlH() { //0xcb3c
 		this.hl = (this.srl((byte) (this.hl >> 8)) << 8) | (this.hl & 0xff);
 	}
 
-	private void srlL(int[] asdf) { //0xcb3d
+	private void srlL() { //0xcb3d
 		this.hl = (this.srl((byte) (this.hl))) | (this.hl & 0xff00);
 	}
 
-	private void srlPtr(int[] asdf) { //0xcb3e
+	private void srlPtr() { //0xcb3e
 		this.mem.write(this.hl, (byte) this.srl(this.mem.read(this.hl)));
 	}
 
-	private void srlA(int[] asdf) { //0xcb3f
+	private void srlA() { //0xcb3f
 		this.af = (this.srl((byte) (this.af >> 8)) << 8) | (this.af & 0xff);
 	}
 
 	//Check if bits are set
-	private void bit0B(int[] asdf) { //0xcb40
+	private void bit0B() { //0xcb40
 		bit((byte) 1, (byte) (this.bc >> 8));
 	}
 
-	private void bit0C(int[] asdf) { //0xcb41
+	private void bit0C() { //0xcb41
 		bit((byte) 1, (byte) (this.bc & 0xff));
 	}
 
-	private void bit0D(int[] asdf) { //0xcb42
+	private void bit0D() { //0xcb42
 		bit((byte) 1, (byte) ((this.de >> 8) & 0xff));
 	}
 
-	private void bit0E(int[] asdf) { //0xcb43
+	private void bit0E() { //0xcb43
 		bit((byte) 1, (byte) (this.de & 0xff));
 	}
 
-	private void bit0H(int[] asdf) { //0xcb44
+	private void bit0H() { //0xcb44
 		bit((byte) 1, (byte) ((this.hl >> 8) & 0xff));
 	}
 
-	private void bit0L(int[] asdf) { //0xcb45
+	private void bit0L() { //0xcb45
 		bit((byte) 1, (byte) ((this.hl) & 0xff));
 	}
 
-	private void bit0HL(int[] asdf) { //0xcb46
+	private void bit0HL() { //0xcb46
 		bit((byte) 1, this.mem.read(this.hl));
 	}
 
-	private void bit0A(int[] asdf) { //0xcb47
+	private void bit0A() { //0xcb47
 		bit((byte) 1, (byte) (this.af >> 8));
 	}
 
-	private void bit1B(int[] asdf) { //0xcb48
+	private void bit1B() { //0xcb48
 		bit((byte) 2, (byte) (this.bc >> 8));
 	}
 
-	private void bit1C(int[] asdf) { //0xcb49
+	private void bit1C() { //0xcb49
 		bit((byte) 2, (byte) (this.bc));
 	}
 
-	private void bit1D(int[] asdf) { //0xcb4a
+	private void bit1D() { //0xcb4a
 		bit((byte) 2, (byte) (this.de >> 8));
 	}
 
-	private void bit1E(int[] asdf) { //0xcb4b
+	private void bit1E() { //0xcb4b
 		bit((byte) 2, (byte) (this.de));
 	}
 
-	private void bit1H(int[] asdf) { //0xcb4c
+	private void bit1H() { //0xcb4c
 		bit((byte) 2, (byte) (this.hl >> 8));
 	}
 
-	private void bit1L(int[] asdf) { //0xcb4d
+	private void bit1L() { //0xcb4d
 		bit((byte) 2, (byte) (this.hl));
 	}
 
-	private void bit1HL(int[] asdf) { //0xcb4e
+	private void bit1HL() { //0xcb4e
 		bit((byte) 2, this.mem.read(this.hl));
 	}
 
-	private void bit1A(int[] asdf) { //0xcb4f
+	private void bit1A() { //0xcb4f
 		bit((byte) 2, (byte) (this.af >> 8));
 	}
 
-	private void bit2B(int[] asdf) { //0xcb50
+	private void bit2B() { //0xcb50
 		bit((byte) 4, (byte) (this.bc >> 8));
 	}
 
-	private void bit2C(int[] asdf) { //0xcb51
+	private void bit2C() { //0xcb51
 		bit((byte) 4, (byte) (this.bc));
 	}
 
-	private void bit2D(int[] asdf) { //0xcb52
+	private void bit2D() { //0xcb52
 		bit((byte) 4, (byte) (this.de >> 8));
 	}
 
-	private void bit2E(int[] asdf) { //0xcb53
+	private void bit2E() { //0xcb53
 		bit((byte) 4, (byte) (this.de));
 	}
 
-	private void bit2H(int[] asdf) { //0xcb54
+	private void bit2H() { //0xcb54
 		bit((byte) 4, (byte) (this.hl >> 8));
 	}
 
-	private void bit2L(int[] asdf) { //0xcb55
+	private void bit2L() { //0xcb55
 		bit((byte) 4, (byte) (this.hl));
 	}
 
-	private void bit2HL(int[] asdf) { //0xcb56
+	private void bit2HL() { //0xcb56
 		bit((byte) 4, this.mem.read(this.hl));
 	}
 
-	private void bit2A(int[] asdf) { //0xcb57
+	private void bit2A() { //0xcb57
 		bit((byte) 4, (byte) (this.af >> 8));
 	}
 
-	private void bit3B(int[] asdf) { //0xcb58
+	private void bit3B() { //0xcb58
 		bit((byte) 8, (byte) (this.bc >> 8));
 	}
 
-	private void bit3C(int[] asdf) { //0xcb59
+	private void bit3C() { //0xcb59
 		bit((byte) 8, (byte) (this.bc));
 	}
 
-	private void bit3D(int[] asdf) { //0xcb5a
+	private void bit3D() { //0xcb5a
 		bit((byte) 8, (byte) (this.de >> 8));
 	}
 
-	private void bit3E(int[] asdf) { //0xcb5b
+	private void bit3E() { //0xcb5b
 		bit((byte) 8, (byte) (this.de));
 	}
 
-	private void bit3H(int[] asdf) { //0xcb5c
+	private void bit3H() { //0xcb5c
 		bit((byte) 8, (byte) (this.hl >> 8));
 	}
 
-	private void bit3L(int[] asdf) { //0xcb5d
+	private void bit3L() { //0xcb5d
 		bit((byte) 8, (byte) (this.hl));
 	}
 
-	private void bit3HL(int[] asdf) { //0xcb5e
+	private void bit3HL() { //0xcb5e
 		bit((byte) (1 << 3), this.mem.read(this.hl));
 	}
 
-	private void bit3A(int[] asdf) { //0xcb5f
+	private void bit3A() { //0xcb5f
 		bit((byte) 8, (byte) (this.af >> 8));
 	}
 
-	private void bit4B(int[] asdf) { //0xcb60
+	private void bit4B() { //0xcb60
 		bit((byte) (1 << 4), (byte) (this.bc >> 8));
 	}
 
-	private void bit4C(int[] asdf) { //0xcb61
+	private void bit4C() { //0xcb61
 		bit((byte) (1 << 4), (byte) (this.bc & 0xff));
 	}
 
-	private void bit4D(int[] asdf) { //0xcb62
+	private void bit4D() { //0xcb62
 		bit((byte) (1 << 4), (byte) ((this.de >> 8) & 0xff));
 	}
 
-	private void bit4E(int[] asdf) { //0xcb63
+	private void bit4E() { //0xcb63
 		bit((byte) (1 << 4), (byte) (this.de & 0xff));
 	}
 
-	private void bit4H(int[] asdf) { //0xcb64
+	private void bit4H() { //0xcb64
 		bit((byte) (1 << 4), (byte) ((this.hl >> 8) & 0xff));
 	}
 
-	private void bit4L(int[] asdf) { //0xcb65
+	private void bit4L() { //0xcb65
 		bit((byte) (1 << 4), (byte) (this.hl & 0xff));
 	}
 
-	private void bit4HL(int[] asdf) { //0xcb66
+	private void bit4HL() { //0xcb66
 		bit((byte) (1 << 4), this.mem.read(this.hl));
 	}
 
-	private void bit4A(int[] asdf) { //0xcb67
+	private void bit4A() { //0xcb67
 		bit((byte) (1 << 4), (byte) (this.af >> 8));
 	}
 
-	private void bit5B(int[] asdf) { //0xcb68
+	private void bit5B() { //0xcb68
 		bit((byte) (1 << 5), (byte) (this.bc >> 8));
 	}
 
-	private void bit5C(int[] asdf) { //0xcb69
+	private void bit5C() { //0xcb69
 		bit((byte) (1 << 5), (byte) (this.bc & 0xff));
 	}
 
-	private void bit5D(int[] asdf) { //0xcb6a
+	private void bit5D() { //0xcb6a
 		bit((byte) (1 << 5), (byte) ((this.de >> 8) & 0xff));
 	}
 
-	private void bit5E(int[] asdf) { //0xcb6b
+	private void bit5E() { //0xcb6b
 		bit((byte) (1 << 5), (byte) ((this.de) & 0xff));
 	}
 
-	private void bit5H(int[] asdf) { //0xcb6c
+	private void bit5H() { //0xcb6c
 		bit((byte) (1 << 5), (byte) ((this.hl >> 8) & 0xff));
 	}
 
-	private void bit5L(int[] asdf) { //0xcb6d
+	private void bit5L() { //0xcb6d
 		bit((byte) (1 << 5), (byte) ((this.hl) & 0xff));
 	}
 
-	private void bit5HL(int[] asdf) { //0xcb6e
+	private void bit5HL() { //0xcb6e
 		bit((byte) (1 << 5), this.mem.read(this.hl));
 	}
 
-	private void bit5A(int[] asdf) { //0xcb6f
+	private void bit5A() { //0xcb6f
 		bit((byte) (1 << 5), (byte) (this.af >> 8));
 	}
 
-	private void bit6B(int[] asdf) { //0xcb70
+	private void bit6B() { //0xcb70
 		bit((byte) (1 << 6), (byte) (this.bc >> 8));
 	}
 
-	private void bit6C(int[] asdf) { //0xcb71
+	private void bit6C() { //0xcb71
 		bit((byte) (1 << 6), (byte) (this.bc));
 	}
 
-	private void bit6D(int[] asdf) { //0xcb72
+	private void bit6D() { //0xcb72
 		bit((byte) (1 << 6), (byte) (this.de >> 8));
 	}
 
-	private void bit6E(int[] asdf) { //0xcb73
+	private void bit6E() { //0xcb73
 		bit((byte) (1 << 6), (byte) (this.de));
 	}
 
-	private void bit6H(int[] asdf) { //0xcb74
+	private void bit6H() { //0xcb74
 		bit((byte) (1 << 6), (byte) (this.hl >> 8));
 	}
 
-	private void bit6L(int[] asdf) { //0xcb75
+	private void bit6L() { //0xcb75
 		bit((byte) (1 << 6), (byte) (this.hl));
 	}
 
-	private void bit6HL(int[] asdf) { //0xcb76
+	private void bit6HL() { //0xcb76
 		bit((byte) (1 << 6), this.mem.read(this.hl));
 	}
 
-	private void bit6A(int[] asdf) { //0xcb77
+	private void bit6A() { //0xcb77
 		bit((byte) (1 << 6), (byte) (this.af >> 8));
 	}
 
-	private void bit7B(int[] asdf) { //0xcb78
+	private void bit7B() { //0xcb78
 		bit((byte) (1 << 7), (byte) (this.bc >> 8));
 	}
 
-	private void bit7C(int[] asdf) { //0xcb7a
+	private void bit7C() { //0xcb7a
 		bit((byte) (1 << 7), (byte) (this.bc));
 	}
 
-	private void bit7D(int[] asdf) { //0xcb7a
+	private void bit7D() { //0xcb7a
 		bit((byte) (1 << 7), (byte) (this.de >> 8));
 	}
 
-	private void bit7E(int[] asdf) { //0xcb7b
+	private void bit7E() { //0xcb7b
 		bit((byte) (1 << 7), (byte) (this.de));
 	}
 
-	private void bit7H(int[] asdf) { //0xcb7c
+	private void bit7H() { //0xcb7c
 		bit((byte) (1 << 7), (byte) (this.hl >> 8));
 	}
 
-	private void bit7L(int[] asdf) { //0xcb7d
+	private void bit7L() { //0xcb7d
 		bit((byte) (1 << 7), (byte) (this.hl));
 	}
 
-	private void bit7HL(int[] asdf) { //0xcb7e
+	private void bit7HL() { //0xcb7e
 		bit((byte) (1 << 7), this.mem.read(this.hl));
 	}
 
-	private void bit7A(int[] asdf) { //0xcb7f
+	private void bit7A() { //0xcb7f
 		bit((byte) (1 << 7), (byte) (this.af >> 8));
 	}
 
 	//Set certain bits to 0
-	private void res0b(int[] asdf) { //0xcb80
+	private void res0b() { //0xcb80
 		this.bc &= ~((1 << 0) << 8);
 	}
 
-	private void res0c(int[] asdf) { //0xcb81
+	private void res0c() { //0xcb81
 		this.bc &= ~(1 << 0);
 	}
 
-	private void res0d(int[] asdf) { //0xcb82
+	private void res0d() { //0xcb82
 		this.de &= ~((1 << 0) << 8);
 	}
 
-	private void res0e(int[] asdf) { //0xcb83
+	private void res0e() { //0xcb83
 		this.de &= ~(1 << 0);
 	}
 
-	private void res0h(int[] asdf) { //0xcb84
+	private void res0h() { //0xcb84
 		this.hl &= ~((1 << 0) << 8);
 	}
 
-	private void res0l(int[] asdf) { //0xcb85
+	private void res0l() { //0xcb85
 		this.hl &= ~(1 << 0);
 	}
 
-	private void res0Ptr(int[] asdf) { //0xcb86
+	private void res0Ptr() { //0xcb86
 		this.mem.write(this.hl, (byte) (this.mem.read(this.hl) & ~(1 << 0)));
 	}
 
-	private void res0a(int[] asdf) { //0xcb87
+	private void res0a() { //0xcb87
 		resa(0);
 	}
 
-	private void res1b(int[] asdf) { // 0xcb88
+	private void res1b() { // 0xcb88
 		this.bc &= ~((1 << 1) << 8);
 	}
 
-	private void res1c(int[] asdf) { // 0xcb89
+	private void res1c() { // 0xcb89
 		this.bc &= ~(1 << 1);
 	}
 
-	private void res1d(int[] asdf) { // 0xcb8a
+	private void res1d() { // 0xcb8a
 		this.de &= ~((1 << 1) << 8);
 	}
 
-	private void res1e(int[] asdf) { // 0xcb8b
+	private void res1e() { // 0xcb8b
 		this.de &= ~(1 << 1);
 	}
 
-	private void res1h(int[] asdf) { // 0xcb8c
+	private void res1h() { // 0xcb8c
 		this.hl &= ~((1 << 1) << 8);
 	}
 
-	private void res1l(int[] asdf) { // 0xcb8d
+	private void res1l() { // 0xcb8d
 		this.hl &= ~(1 << 1);
 	}
 
-	private void res1Ptr(int[] asdf) { //0xcb8e
+	private void res1Ptr() { //0xcb8e
 		this.mem.write(this.hl, (byte) (this.mem.read(this.hl) & ~(2)));
 	}
 
-	private void res1a(int[] asdf) { // 0xcb8f
+	private void res1a() { // 0xcb8f
 		resa(1);
 	}
 
-	private void res2b(int[] asdf) { // 0xcb90
+	private void res2b() { // 0xcb90
 		this.bc &= ~((1 << 2) << 8);
 	}
 
-	private void res2c(int[] asdf) { // 0xcb91
+	private void res2c() { // 0xcb91
 		this.bc &= ~(1 << 2);
 	}
 
-	private void res2d(int[] asdf) { // 0xcb92
+	private void res2d() { // 0xcb92
 		this.de &= ~((1 << 2) << 8);
 	}
 
-	private void res2e(int[] asdf) { // 0xcb93
+	private void res2e() { // 0xcb93
 		this.de &= ~(1 << 2);
 	}
 
-	private void res2h(int[] asdf) { // 0xcb94
+	private void res2h() { // 0xcb94
 		this.hl &= ~((1 << 2) << 8);
 	}
 
-	private void res2l(int[] asdf) { // 0xcb95
+	private void res2l() { // 0xcb95
 		this.hl &= ~(1 << 2);
 	}
 
-	private void res2Ptr(int[] asdf) { //0xcb96
+	private void res2Ptr() { //0xcb96
 		this.mem.write(this.hl, (byte) (this.mem.read(this.hl) & ~(1 << 2)));
 	}
 
-	private void res2a(int[] asdf) { // 0xcb97
+	private void res2a() { // 0xcb97
 		resa(2);
 	}
 
-	private void res3b(int[] asdf) { // 0xcb98
+	private void res3b() { // 0xcb98
 		this.bc &= ~((1 << 3) << 8);
 	}
 
-	private void res3c(int[] asdf) { // 0xcb99
+	private void res3c() { // 0xcb99
 		this.bc &= ~(1 << 3);
 	}
 
-	private void res3d(int[] asdf) { // 0xcb9a
+	private void res3d() { // 0xcb9a
 		this.de &= ~((1 << 3) << 8);
 	}
 
-	private void res3e(int[] asdf) { // 0xcb9b
+	private void res3e() { // 0xcb9b
 		this.de &= ~(1 << 3);
 	}
 
-	private void res3h(int[] asdf) { // 0xcb9c
+	private void res3h() { // 0xcb9c
 		this.hl &= ~((1 << 3) << 8);
 	}
 
-	private void res3l(int[] asdf) { // 0xcb9d
+	private void res3l() { // 0xcb9d
 		this.hl &= ~(1 << 3);
 	}
 
-	private void res3Ptr(int[] asdf) { //0xcb9e
+	private void res3Ptr() { //0xcb9e
 		this.mem.write(this.hl, (byte) (this.mem.read(this.hl) & ~(1 << 3)));
 	}
 
-	private void res3a(int[] asdf) { // 0xcb9f
+	private void res3a() { // 0xcb9f
 		this.af &= ~((1 << 3) << 8);
 	}
 
-	private void res4b(int[] asdf) { // 0xcba0
+	private void res4b() { // 0xcba0
 		this.bc &= ~((1 << 4) << 8);
 	}
 
-	private void res4c(int[] asdf) { // 0xcba1
+	private void res4c() { // 0xcba1
 		this.bc &= ~(1 << 4);
 	}
 
-	private void res4d(int[] asdf) { // 0xcba2
+	private void res4d() { // 0xcba2
 		this.de &= ~((1 << 4) << 8);
 	}
 
-	private void res4e(int[] asdf) { // 0xcba3
+	private void res4e() { // 0xcba3
 		this.de &= ~(1 << 4);
 	}
 
-	private void res4h(int[] asdf) { // 0xcba4
+	private void res4h() { // 0xcba4
 		this.hl &= ~((1 << 4) << 8);
 	}
 
-	private void res4l(int[] asdf) { // 0xcba5
+	private void res4l() { // 0xcba5
 		this.hl &= ~(1 << 4);
 	}
 
-	private void res4Ptr(int[] asdf) { //0xcba6
+	private void res4Ptr() { //0xcba6
 		this.mem.write(this.hl, (byte) (this.mem.read(this.hl) & ~(1 << 4)));
 	}
 
-	private void res4a(int[] asdf) { // 0xcba7
+	private void res4a() { // 0xcba7
 		this.af &= ~((1 << 4) << 8);
 	}
 
-	private void res5b(int[] asdf) { // 0xcba8
+	private void res5b() { // 0xcba8
 		this.bc &= ~((1 << 5) << 8);
 	}
 
-	private void res5c(int[] asdf) { // 0xcba9
+	private void res5c() { // 0xcba9
 		this.bc &= ~(1 << 5);
 	}
 
-	private void res5d(int[] asdf) { // 0xcbaa
+	private void res5d() { // 0xcbaa
 		this.de &= ~((1 << 5) << 8);
 	}
 
-	private void res5e(int[] asdf) { // 0xcbab
+	private void res5e() { // 0xcbab
 		this.de &= ~((1 << 5));
 	}
 
-	private void res5h(int[] asdf) { // 0xcba8
+	private void res5h() { // 0xcba8
 		this.hl &= ~((1 << 5) << 8);
 	}
 
-	private void res5l(int[] asdf) { // 0xcba8
+	private void res5l() { // 0xcba8
 		this.hl &= ~((1 << 5));
 	}
 
-	private void res5Ptr(int[] asdf) { //0xcbae
+	private void res5Ptr() { //0xcbae
 		this.mem.write(this.hl, (byte) (this.mem.read(this.hl) & ~(1 << 5)));
 	}
 
-	private void res5a(int[] asdf) { // 0xcbaf
+	private void res5a() { // 0xcbaf
 		resa(5);
 	}
 
-	private void res6b(int[] asdf) { // 0xcbb0
+	private void res6b() { // 0xcbb0
 		this.bc &= ~((1 << 6) << 8);
 	}
 
-	private void res6c(int[] asdf) { // 0xcbb1
+	private void res6c() { // 0xcbb1
 		this.bc &= ~(1 << 6);
 	}
 
-	private void res6d(int[] asdf) { // 0xcbb2
+	private void res6d() { // 0xcbb2
 		this.de &= ~((1 << 6) << 8);
 	}
 
-	private void res6e(int[] asdf) { // 0xcbb3
+	private void res6e() { // 0xcbb3
 		this.de &= ~(1 << 6);
 	}
 
-	private void res6h(int[] asdf) { // 0xcbb4
+	private void res6h() { // 0xcbb4
 		this.hl &= ~((1 << 6) << 8);
 	}
 
-	private void res6l(int[] asdf) { // 0xcbb5
+	private void res6l() { // 0xcbb5
 		this.hl &= ~(1 << 6);
 	}
 
-	private void res6Ptr(int[] asdf) { //0xcbb6
+	private void res6Ptr() { //0xcbb6
 		this.mem.write(this.hl, (byte) (this.mem.read(this.hl) & ~(1 << 6)));
 	}
 
-	private void res6a(int[] asdf) { // 0xcbb7
+	private void res6a() { // 0xcbb7
 		this.af &= ~((1 << 6) << 8);
 	}
 
-	private void res7b(int[] asdf) { // 0xcbb8
+	private void res7b() { // 0xcbb8
 		this.bc &= ~((1 << 7) << 8);
 	}
 
-	private void res7c(int[] asdf) { // 0xcbba
+	private void res7c() { // 0xcbba
 		this.bc &= ~((1 << 7));
 	}
 
-	private void res7d(int[] asdf) { // 0xcbba
+	private void res7d() { // 0xcbba
 		this.de &= ~((1 << 7) << 8);
 	}
 
-	private void res7e(int[] asdf) { // 0xcbbb
+	private void res7e() { // 0xcbbb
 		this.de &= ~((1 << 7));
 	}
 
-	private void res7h(int[] asdf) { // 0xcbbc
+	private void res7h() { // 0xcbbc
 		this.hl &= ~((1 << 7) << 8);
 	}
 
-	private void res7l(int[] asdf) { // 0xcbbd
+	private void res7l() { // 0xcbbd
 		this.hl &= ~((1 << 7));
 	}
 
-	private void res7Ptr(int[] asdf) { //0xcbbe
+	private void res7Ptr() { //0xcbbe
 		this.mem.write(this.hl, (byte) (this.mem.read(this.hl) & ~(1 << 7)));
 	}
 
-	private void res7a(int[] asdf) { // 0xcbbf
+	private void res7a() { // 0xcbbf
 		resa(7);
 	}
 
 	//Set certain bits to 0
-	private void set0B(int[] asdf) { //0xcbc0
+	private void set0B() { //0xcbc0
 		this.bc |= ((1 << 0) << 8);
 	}
 
-	private void set0C(int[] asdf) { //0xcbc1
+	private void set0C() { //0xcbc1
 		this.bc |= (1 << 0);
 	}
 
-	private void set0D(int[] asdf) { //0xcbc2
+	private void set0D() { //0xcbc2
 		this.de |= ((1 << 0) << 8);
 	}
 
-	private void set0E(int[] asdf) { //0xcbc3
+	private void set0E() { //0xcbc3
 		this.de |= (1 << 0);
 	}
 
-	private void set0H(int[] asdf) { //0xcbc4
+	private void set0H() { //0xcbc4
 		this.hl |= ((1 << 0) << 8);
 	}
 
-	private void set0L(int[] asdf) { //0xcbc5
+	private void set0L() { //0xcbc5
 		this.hl |= (1 << 0);
 	}
 
-	private void set0Ptr(int[] asdf) { //0xcbc6
+	private void set0Ptr() { //0xcbc6
 		this.mem.write(this.hl, (byte) (this.mem.read(hl) | (1)));
 	}
 
-	private void set0A(int[] asdf) { //0xcbc7
+	private void set0A() { //0xcbc7
 		this.af |= (1 << 0) << 8;
 	}
 
-	private void set1B(int[] asdf) { //0xcbc8
+	private void set1B() { //0xcbc8
 		this.bc |= (1 << 1) << 8;
 	}
 
-	private void set1C(int[] asdf) { //0xcbc9
+	private void set1C() { //0xcbc9
 		this.bc |= (1 << 1);
 	}
 
-	private void set1D(int[] asdf) { //0xcbca
+	private void set1D() { //0xcbca
 		this.de |= (1 << 1) << 8;
 	}
 
-	private void set1E(int[] asdf) { //0xcbcb
+	private void set1E() { //0xcbcb
 		this.de |= (1 << 1);
 	}
 
-	private void set1H(int[] asdf) { //0xcbcc
+	private void set1H() { //0xcbcc
 		this.hl |= (1 << 1) << 8;
 	}
 
-	private void set1L(int[] asdf) { //0xcbcd
+	private void set1L() { //0xcbcd
 		this.hl |= (1 << 1);
 	}
 
-	private void set1Ptr(int[] asdf) { //0xcbce
+	private void set1Ptr() { //0xcbce
 		this.mem.write(this.hl, (byte) (this.mem.read(hl) | (2)));
 	}
 
-	private void set1A(int[] asdf) { //0xcbcf
+	private void set1A() { //0xcbcf
 		this.af |= (1 << 1) << 8;
 	}
 
-	private void set2B(int[] asdf) { //0xcbd0
+	private void set2B() { //0xcbd0
 		this.bc |= (1 << 2) << 8;
 	}
 
-	private void set2C(int[] asdf) { //0xcbd1
+	private void set2C() { //0xcbd1
 		this.bc |= (1 << 2);
 	}
 
-	private void set2D(int[] asdf) { //0xcbd2
+	private void set2D() { //0xcbd2
 		this.de |= (1 << 2) << 8;
 	}
 
-	private void set2E(int[] asdf) { //0xcbd3
+	private void set2E() { //0xcbd3
 		this.de |= (1 << 2);
 	}
 
-	private void set2H(int[] asdf) { //0xcbd4
+	private void set2H() { //0xcbd4
 		this.hl |= (1 << 2) << 8;
 	}
 
-	private void set2L(int[] asdf) { //0xcbd5
+	private void set2L() { //0xcbd5
 		this.hl |= (1 << 2);
 	}
 
-	private void set2Ptr(int[] asdf) { //0xcbd6
+	private void set2Ptr() { //0xcbd6
 		this.mem.write(this.hl, (byte) (this.mem.read(hl) | (1 << 2)));
 	}
 
-	private void set2A(int[] asdf) { //0xcbd7
+	private void set2A() { //0xcbd7
 		this.af |= (1 << 2) << 8;
 	}
 
-	private void set3B(int[] asdf) { //0xcbd8
+	private void set3B() { //0xcbd8
 		this.bc |= (1 << 3) << 8;
 	}
 
-	private void set3C(int[] asdf) { //0xcbd9
+	private void set3C() { //0xcbd9
 		this.bc |= (1 << 3);
 	}
 
-	private void set3D(int[] asdf) { //0xcbda
+	private void set3D() { //0xcbda
 		this.de |= (1 << 3) << 8;
 	}
 
-	private void set3E(int[] asdf) { //0xcbdb
+	private void set3E() { //0xcbdb
 		this.de |= (1 << 3);
 	}
 
-	private void set3H(int[] asdf) { //0xcbdc
+	private void set3H() { //0xcbdc
 		this.hl |= (1 << 3) << 8;
 	}
 
-	private void set3L(int[] asdf) { //0xcbdd
+	private void set3L() { //0xcbdd
 		this.hl |= (1 << 3);
 	}
 
-	private void set3Ptr(int[] asdf) { //0xcbde
+	private void set3Ptr() { //0xcbde
 		this.mem.write(this.hl, (byte) (this.mem.read(hl) | (1 << 3)));
 	}
 
-	private void set3A(int[] asdf) { //0xcbdf
+	private void set3A() { //0xcbdf
 		this.af |= (1 << 3) << 8;
 	}
 
-	private void set4B(int[] asdf) { //0xcbe0
+	private void set4B() { //0xcbe0
 		this.bc |= (1 << 4) << 8;
 	}
 
-	private void set4C(int[] asdf) { //0xcbe1
+	private void set4C() { //0xcbe1
 		this.bc |= (1 << 4);
 	}
 
-	private void set4D(int[] asdf) { //0xcbe2
+	private void set4D() { //0xcbe2
 		this.de |= (1 << 4) << 8;
 	}
 
-	private void set4E(int[] asdf) { //0xcbe3
+	private void set4E() { //0xcbe3
 		this.de |= (1 << 4);
 	}
 
-	private void set4H(int[] asdf) { //0xcbe4
+	private void set4H() { //0xcbe4
 		this.hl |= (1 << 4) << 8;
 	}
 
-	private void set4L(int[] asdf) { //0xcbe5
+	private void set4L() { //0xcbe5
 		this.hl |= (1 << 4);
 	}
 
-	private void set4Ptr(int[] asdf) { //0xcbe6
+	private void set4Ptr() { //0xcbe6
 		this.mem.write(this.hl, (byte) (this.mem.read(hl) | (1 << 4)));
 	}
 
-	private void set4A(int[] asdf) { //0xcbe7
+	private void set4A() { //0xcbe7
 		this.af |= (1 << 4) << 8;
 	}
 
-	private void set5B(int[] asdf) { //0xcbe8
+	private void set5B() { //0xcbe8
 		this.bc |= (1 << 5) << 8;
 	}
 
-	private void set5C(int[] asdf) { //0xcbe9
+	private void set5C() { //0xcbe9
 		this.bc |= (1 << 5);
 	}
 
-	private void set5D(int[] asdf) { //0xcbea
+	private void set5D() { //0xcbea
 		this.de |= (1 << 5) << 8;
 	}
 
-	private void set5E(int[] asdf) { //0xcbeb
+	private void set5E() { //0xcbeb
 		this.de |= (1 << 5);
 	}
 
-	private void set5H(int[] asdf) { //0xcbec
+	private void set5H() { //0xcbec
 		this.hl |= (1 << 5) << 8;
 	}
 
-	private void set5L(int[] asdf) { //0xcbed
+	private void set5L() { //0xcbed
 		this.hl |= (1 << 5);
 	}
 
-	private void set5Ptr(int[] asdf) { //0xcbee
+	private void set5Ptr() { //0xcbee
 		this.mem.write(this.hl, (byte) (this.mem.read(hl) | (1 << 5)));
 	}
 
-	private void set5A(int[] asdf) { //0xcbef
+	private void set5A() { //0xcbef
 		this.af |= (1 << 5) << 8;
 	}
 
-	private void set6B(int[] asdf) { //0xcbf0
+	private void set6B() { //0xcbf0
 		this.bc |= (1 << 6) << 8;
 	}
 
-	private void set6C(int[] asdf) { //0xcbf1
+	private void set6C() { //0xcbf1
 		this.bc |= (1 << 6);
 	}
 
-	private void set6D(int[] asdf) { //0xcbf2
+	private void set6D() { //0xcbf2
 		this.de |= (1 << 6) << 8;
 	}
 
-	private void set6E(int[] asdf) { //0xcbf3
+	private void set6E() { //0xcbf3
 		this.de |= (1 << 6);
 	}
 
-	private void set6H(int[] asdf) { //0xcbf4
+	private void set6H() { //0xcbf4
 		this.hl |= (1 << 6) << 8;
 	}
 
-	private void set6L(int[] asdf) { //0xcbf5
+	private void set6L() { //0xcbf5
 		this.hl |= (1 << 6);
 	}
 
-	private void set6Ptr(int[] asdf) { //0xcbf6
+	private void set6Ptr() { //0xcbf6
 		this.mem.write(this.hl, (byte) (this.mem.read(hl) | (1 << 6)));
 	}
 
-	private void set6A(int[] asdf) { //0xcbf7
+	private void set6A() { //0xcbf7
 		this.af |= (1 << 6) << 8;
 	}
 
-	private void set7B(int[] asdf) { //0xcbf8
+	private void set7B() { //0xcbf8
 		this.bc |= (1 << 7) << 8;
 	}
 
-	private void set7C(int[] asdf) { //0xcbf9
+	private void set7C() { //0xcbf9
 		this.bc |= (1 << 7);
 	}
 
-	private void set7D(int[] asdf) { //0xcbfa
+	private void set7D() { //0xcbfa
 		this.de |= (1 << 7) << 8;
 	}
 
-	private void set7E(int[] asdf) { //0xcbfb
+	private void set7E() { //0xcbfb
 		this.de |= (1 << 7);
 	}
 
-	private void set7H(int[] asdf) { //0xcbfc
+	private void set7H() { //0xcbfc
 		this.hl |= (1 << 7) << 8;
 	}
 
-	private void set7L(int[] asdf) { //0xcbfd
+	private void set7L() { //0xcbfd
 		this.hl |= (1 << 7);
 	}
 
-	private void set7Ptr(int[] asdf) { //0xcbfe
+	private void set7Ptr() { //0xcbfe
 		this.mem.write(this.hl, (byte) (this.mem.read(hl) | (1 << 7)));
 	}
 
-	private void set7A(int[] asdf) { //0xcbff
+	private void set7A() { //0xcbff
 		this.af |= (1 << 7) << 8;
 	}
 
@@ -3182,102 +3362,47 @@ public class CPU {
 
 	//Bitwise xor with flag setting
 	private void xor(int value) {
-		int a = (this.af >> 8) & 0xff;
-		a ^= value;
-		if (a == 0) {
-			this.af |= FLAG_ZERO;
-		} else {
-			this.af &= ~FLAG_ZERO;
-		}
-		this.af &= ~(FLAG_CARRY | FLAG_NEG | FLAG_HALF_CARRY);
-		this.af = (this.af & 0xff) | ((a << 8) & 0xff00);
+		int a = ((this.af >> 8) ^ value) & 0xff;
+		this.lazyOp = LAZY_LOGIC;
+		this.lazyX = a;
+		this.af = (this.af & 0xff) | (a << 8);
 	}
 
 	//Bitwise and with flag setting
 	private void and(int value) {
-		int a = (this.af >> 8) & 0xff;
-		a &= value;
-		if (a == 0) {
-			this.af |= FLAG_ZERO;
-		} else {
-			this.af &= ~FLAG_ZERO;
-		}
-		this.af &= ~(FLAG_CARRY | FLAG_NEG | FLAG_HALF_CARRY);
-		this.af |= FLAG_HALF_CARRY;
-		this.af = (this.af & 0xff) | ((a << 8) & 0xff00);
+		int a = ((this.af >> 8) & value) & 0xff;
+		this.lazyOp = LAZY_AND;
+		this.lazyX = a;
+		this.af = (this.af & 0xff) | (a << 8);
 	}
 
 	//Bitwise or with flag setting
 	private void or(int value) {
-		int a = (this.af >> 8) & 0xff;
-		a |= value;
-		if (a == 0) {
-			this.af |= FLAG_ZERO;
-		} else {
-			this.af &= ~FLAG_ZERO;
-		}
-		this.af &= ~(FLAG_CARRY | FLAG_NEG | FLAG_HALF_CARRY);
-		this.af = (this.af & 0xff) | ((a << 8) & 0xff00);
+		int a = ((this.af >> 8) | value) & 0xff;
+		this.lazyOp = LAZY_LOGIC;
+		this.lazyX = a;
+		this.af = (this.af & 0xff) | (a << 8);
 	}
 
 	//Decrement with flag setting
 	private int dec(int i) {
-		if ((i & 0xf) == 0) {
-			this.af |= FLAG_HALF_CARRY;
-		} else {
-			this.af &= ~FLAG_HALF_CARRY;
-		}
-		if (((i - 1) & 0xffff) == 0) {
-			this.af |= FLAG_ZERO;
-		} else {
-			this.af &= ~FLAG_ZERO;
-		}
-
-		this.af |= FLAG_NEG;
+		this.lazyOp = LAZY_DEC;
+		this.lazyX = i;
 		return (i - 1) & 0xffff;
 	}
 
 	//Increment byte with flag setting
 	private int incByte(int i) {
-		if ((i & 0xf) == 0xf) {
-			this.af |= FLAG_HALF_CARRY;
-		} else {
-			this.af &= ~FLAG_HALF_CARRY;
-		}
-
-		if (((i + 1) & 0xff) == 0) {
-			this.af |= FLAG_ZERO;
-		} else {
-			this.af &= ~FLAG_ZERO;
-		}
-
-		this.af &= ~FLAG_NEG;
-
+		this.lazyOp = LAZY_INC;
+		this.lazyX = i;
 		return (i + 1) & 0xff;
 	}
 
 	//Compare 2 values, set flags
 	private void cp(int a, int b) {
-
-		this.af |= FLAG_NEG;
-		if (a == b) {
-			this.af |= FLAG_ZERO;
-		} else {
-			this.af &= ~FLAG_ZERO;
-		}
-
-		if (b > a) {
-			this.af |= FLAG_CARRY;
-		} else {
-			this.af &= ~FLAG_CARRY;
-		}
-
-		if ((b & 0xf) > (a & 0xf)) {
-			this.af |= FLAG_HALF_CARRY;
-		} else {
-			this.af &= ~FLAG_HALF_CARRY;
-		}
-
+		this.lazyOp = LAZY_SUB;
+		this.lazyX = a & 0xff;
+		this.lazyY = b & 0xff;
 	}
 
 	//Swap nibbles, set flags
@@ -3297,37 +3422,19 @@ public class CPU {
 	//Add bytes with carry
 	private int adcBytes(byte x, byte y) {
 		int carry = (((this.af & FLAG_CARRY) > 0) ? 1 : 0);
-		int out = addBytes(x, (byte) (y + carry)) & 0xff;
-		if ((x & 0xf) + (y & 0xf) + carry >= 0x10) {
-			this.af |= FLAG_HALF_CARRY;
-		}
-		if ((x & 0xff) + (y & 0xff) + carry > 0xff) {
-			this.af |= FLAG_CARRY;
-		}
-		return out & 0xff;
+		this.lazyOp = LAZY_ADC;
+		this.lazyX = x & 0xff;
+		this.lazyY = y & 0xff;
+		this.lazyCarry = carry;
+		return (x + y + carry) & 0xff;
 	}
 
 	//Add 2 bytes
 	private int addBytes(byte x, byte y) {
-		byte out = (byte) (x + y);
-		int bigSum = (x & 0xff) + (y & 0xff);
-		if (bigSum > 0xff) {
-			this.af |= FLAG_CARRY;
-		} else {
-			this.af &= ~FLAG_CARRY;
-		}
-		if ((x & 0xf) + (y & 0xf) > 0xf) {
-			this.af |= FLAG_HALF_CARRY;
-		} else {
-			this.af &= ~FLAG_HALF_CARRY;
-		}
-		if (out == 0) {
-			this.af |= FLAG_ZERO;
-		} else {
-			this.af &= ~FLAG_ZERO;
-		}
-		this.af &= ~FLAG_NEG;
-		return out & 0xff;
+		this.lazyOp = LAZY_ADD;
+		this.lazyX = x & 0xff;
+		this.lazyY = y & 0xff;
+		return (x + y) & 0xff;
 	}
 
 	//Subtract with carry bytes
@@ -3336,46 +3443,99 @@ public class CPU {
 		if ((this.af & FLAG_CARRY) > 0) {
 			carry = 1;
 		}
-		int temp = ((x & 0xff) - (y & 0xff) - carry);
-		if (temp < 0) {
-			this.af |= FLAG_CARRY;
-		} else {
-			this.af &= ~FLAG_CARRY;
-		}
-		if ((y & 0xf) + carry > (x & 0xf)) {
-			this.af |= FLAG_HALF_CARRY;
-		} else {
-			this.af &= ~FLAG_HALF_CARRY;
-		}
-		if ((temp & 0xff) == 0) {
-			this.af |= FLAG_ZERO;
-		} else {
-			this.af &= ~FLAG_ZERO;
-		}
-		this.af |= FLAG_NEG;
-		return temp & 0xff;
+		this.lazyOp = LAZY_SBC;
+		this.lazyX = x & 0xff;
+		this.lazyY = y & 0xff;
+		this.lazyCarry = carry;
+		return (x - y - carry) & 0xff;
 	}
 
 	//Subtract bytes
 	private int subBytes(byte x, byte y) {
-		byte out = (byte) (x - y);
-		if ((y & 0xff) > (x & 0xff)) {
-			this.af |= FLAG_CARRY;
-		} else {
-			this.af &= ~FLAG_CARRY;
-		}
-		if ((y & 0xf) > (x & 0xf)) {
-			this.af |= FLAG_HALF_CARRY;
-		} else {
-			this.af &= ~FLAG_HALF_CARRY;
-		}
-		if (out == 0) {
-			this.af |= FLAG_ZERO;
-		} else {
-			this.af &= ~FLAG_ZERO;
+		this.lazyOp = LAZY_SUB;
+		this.lazyX = x & 0xff;
+		this.lazyY = y & 0xff;
+		return (x - y) & 0xff;
+	}
+
+	//Works out the flags for the last lazy op and writes them into af
+	@SuppressWarnings("fallthrough")
+	void settleFlags() {
+		if (this.lazyOp == LAZY_NONE) {
+			return;
+		}
+		int x = this.lazyX;
+		int y = this.lazyY;
+		int carry = this.lazyCarry;
+		//INC and DEC leave the carry flag alone, everything else sets all four
+		int keep = 0xff0f;
+		int f = 0;
+		switch (this.lazyOp) {
+		case LAZY_ADD:
+			carry = 0;
+			//fallthrough
+		case LAZY_ADC:
+			if (((x + y + carry) & 0xff) == 0) {
+				f |= FLAG_ZERO;
+			}
+			if ((x & 0xf) + (y & 0xf) + carry > 0xf) {
+				f |= FLAG_HALF_CARRY;
+			}
+			if (x + y + carry > 0xff) {
+				f |= FLAG_CARRY;
+			}
+			break;
+		case LAZY_SUB:
+			carry = 0;
+			//fallthrough
+		case LAZY_SBC:
+			f |= FLAG_NEG;
+			if (((x - y - carry) & 0xff) == 0) {
+				f |= FLAG_ZERO;
+			}
+			if ((y & 0xf) + carry > (x & 0xf)) {
+				f |= FLAG_HALF_CARRY;
+			}
+			if (x - y - carry < 0) {
+				f |= FLAG_CARRY;
+			}
+			break;
+		case LAZY_AND:
+			f |= FLAG_HALF_CARRY;
+			//fallthrough
+		case LAZY_LOGIC:
+			if (x == 0) {
+				f |= FLAG_ZERO;
+			}
+			break;
+		case LAZY_INC:
+			keep |= FLAG_CARRY;
+			if ((x & 0xf) == 0xf) {
+				f |= FLAG_HALF_CARRY;
+			}
+			if (((x + 1) & 0xff) == 0) {
+				f |= FLAG_ZERO;
+			}
+			break;
+		case LAZY_DEC:
+			keep |= FLAG_CARRY;
+			f |= FLAG_NEG;
+			if ((x & 0xf) == 0) {
+				f |= FLAG_HALF_CARRY;
+			}
+			if (((x - 1) & 0xffff) == 0) {
+				f |= FLAG_ZERO;
+			}
+			break;
 		}
-		this.af |= FLAG_NEG;
-		return out & 0xff;
+		this.af = (this.af & keep) | f;
+		this.lazyOp = LAZY_NONE;
+	}
+
+	//AF with up to date flags
+	public int getAF() {
+		this.settleFlags();
+		return this.af;
 	}
 
 	//Used for debugging, runs private functions
@@ -3612,8 +3772,9 @@ public class CPU {
 	}
 
 	//Instruction method is the interface that all method handles in here are made into
+	//Handlers take no arguments - anything that follows the opcode is decoded into operand first
 	public interface InstructionMethod {
-		public void execute(int... bytes);
+		public void execute();
 	}
 
 	//Pushes an pops stuff to and from stack
@@ -3647,11 +3808,27 @@ public class CPU {
 		return this.pc;
 	}
 
+	public int getBC() {
+		return this.bc;
+	}
+
+	public int getDE() {
+		return this.de;
+	}
+
+	public int getHL() {
+		return this.hl;
+	}
+
+	public int getSP() {
+		return this.sp;
+	}
+
 	//Basic instruction implementation, supports disassembly and execution
 	public class Instruction {
 		private InstructionMethod m;
 		private String d;
-		private int argCount;
+		final int argCount;
 
 		public final int baseTicks;
 
@@ -3697,6 +3874,17 @@ public class CPU {
 		public boolean implemented(int addr) {
 			return true;
 		}
+
+		//Set for instructions that look at the flags, see READS_FLAGS
+		boolean readsFlags = false;
+
+		//Runs the handler once its operand has been decoded
+		void execute() {
+			if (this.readsFlags) {
+				settleFlags();
+			}
+			this.m.execute();
+		}
 	}
 
 	//Used while implementing all the opcode, kept in to illustrate development cycle
@@ -3704,7 +3892,7 @@ public class CPU {
 		public Unimplemented(int count) {
 			super(String.format("Unimplemented instruction: 0x%02x", count), 0, new InstructionMethod() {
 				@Override
-				public void execute(int... bytes) {
+				public void execute() {
 				}
 			}, 0);
 		}
@@ -3720,7 +3908,7 @@ public class CPU {
 		public Nonexistant(int count) {
 			super(String.format("Nonexistant instruction: 0x%02x", count), 0, new InstructionMethod() {
 				@Override
-				public void execute(int... bytes) {
+				public void execute() {
 				}
 			}, 0);
 		}
@@ -3732,8 +3920,12 @@ public class CPU {
 	}
 
 	//Various memory reading utilities
-	private int[] readBytesFromMemory(int len) {
-		int[] out = readBytesFromMemory(this.pc, len);
+	//Reads a little endian operand of up to 2 bytes following the opcode, advances the PC past it
+	private int readOperand(int len) {
+		int out = 0;
+		for (int i = 0; i < len; i++) {
+			out |= (mem.read(this.pc + i) & 0xff) << (i << 3);
+		}
 		this.pc += len;
 		return out;
 	}
@@ -3776,10 +3968,11 @@ public class CPU {
 	}
 
 	//Sort of workaround to run the extended instructions without modifying my existing datastructure
+	//The byte after 0xcb is decoded as this instruction's operand, and picks the extended instruction
 	private class ExtendedInstructions extends Instruction {
 
 		public ExtendedInstructions() {
-			super(null, 0, null, 0);
+			super(null, 1, null, 0);
 		}
 
 		@Override
@@ -3793,7 +3986,7 @@ public class CPU {
 
 		@Override
 		public InstructionMethod getMethod(int addr) {
-			return new MethodWrapper(extInstructions[mem.read(addr + 1) & 0xff], addr + 1);
+			return extInstructions[mem.read(addr + 1) & 0xff].getMethod(addr + 1);
 		}
 
 		@Override
@@ -3806,29 +3999,11 @@ public class CPU {
 			return extInstructions[mem.read(addr + 1) & 0xff].implemented(addr + 1);
 		}
 
-		private class MethodWrapper implements InstructionMethod {
-
-			public final Instruction inst;
-			int a;
-
-			public MethodWrapper(Instruction i, int addr) {
-				this.inst = i;
-				this.a = addr;
-			}
-
-			@Override
-			public void execute(int... bytes) {
-				if (bytes == null) {
-					this.inst.getMethod(this.a).execute(null);
-				} else {
-					int[] args = new int[bytes.length - 1];
-					for (int i = 0; i < args.length; i++)
-						args[i] = bytes[i + 1];
-					this.inst.getMethod(this.a).execute(args);
-				}
-				c.inc(this.inst.baseTicks);
-			}
-
+		@Override
+		void execute() {
+			Instruction ext = extInstructions[operand];
+			ext.execute();
+			c.inc(ext.baseTicks);
 		}
 	}
 }
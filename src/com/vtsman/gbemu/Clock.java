@@ -6,11 +6,15 @@ package com.vtsman.gbemu;
 //triggers an interrupt periodically
 public class Clock implements IAddressable {
 
-	private short divider = (short)0xABCC;
+	//The divider is worked out from totalTicks, it's divBase ticks ahead of it
+	private int divBase = 0xABCC;
 
 	private int timaCounterCritical = 16;
 	private byte tima = 0;
 	private byte tma = 0;
+	//tima is only brought up to date when something looks at it. This is the tick it was
+	//last worked out for
+	private long timaTicks = 0;
 
 	private boolean started = true;
 
@@ -20,29 +24,84 @@ public class Clock implements IAddressable {
 	//Necessary to trigger the interrupt
 	InterruptController c;
 
+	//Everything that happens at a set time is scheduled here, against totalTicks
+	private Scheduler scheduler = new Scheduler();
+	//Fires when TIMA next overflows
+	private Scheduler.Event timerEvent = new Scheduler.Event(this::timerDue);
+
 	public Clock(InterruptController ic) {
 		this.c = ic;
+		ic.setScheduler(this.scheduler);
+		this.scheduleTimer();
+	}
+
+	public Scheduler getScheduler() {
+		return this.scheduler;
 	}
 
 	public void reset() {
 		/*ticks = 0;*/
 	}
 
-	//Called every time the CPU executes an instruction. Triggers interrupt if necessary.
+	//Called every time the CPU executes an instruction. The timer interrupt is scheduled
+	//ahead of time, so this just counts
 	public void inc(int amount) {
-		for(int i = 0; i < amount; i++){
-			totalTicks++;
-			divider++;
-			if((divider & (timaCounterCritical - 1)) == timaCounterCritical >> 1){
-				if(this.started) {
-					tima++;
-					if (tima == 0) {
-						tima = tma;
-						this.c.timerInterrupt();
-					}
-				}
+		totalTicks += amount;
+	}
+
+	private int divider() {
+		return (int) ((this.divBase + this.totalTicks) & 0xffff);
+	}
+
+	//Brings tima up to date. TIMA goes up every time the divider's low bits hit half the
+	//period, so that can be counted directly instead of ticking through
+	private void syncTima() {
+		long now = this.totalTicks;
+		if (this.started && now > this.timaTicks) {
+			int period = this.timaCounterCritical;
+			//The period always divides 0x10000, so the divider wrapping doesn't matter
+			long from = this.divBase + this.timaTicks - (period >> 1);
+			long count = Math.floorDiv(from + now - this.timaTicks, period) - Math.floorDiv(from, period);
+			int value = this.tima & 0xff;
+			if (count < 0x100 - value) {
+				this.tima = (byte) (value + count);
+			} else {
+				//Overflowed at least once, after that it counts up from tma every time
+				long left = count - (0x100 - value);
+				int reload = this.tma & 0xff;
+				this.tima = (byte) (reload + left % (0x100 - reload));
+				this.c.timerInterrupt();
 			}
 		}
+		this.timaTicks = now;
+	}
+
+	//The tick TIMA next overflows on, or Long.MAX_VALUE if the timer is stopped
+	public long nextTimerInterrupt() {
+		if (!this.started) {
+			return Long.MAX_VALUE;
+		}
+		this.syncTima();
+		int period = this.timaCounterCritical;
+		int first = ((period >> 1) - this.divider()) & (period - 1);
+		if (first == 0) {
+			first = period;
+		}
+		return this.totalTicks + first + (long) (0xff - (this.tima & 0xff)) * period;
+	}
+
+	private void scheduleTimer() {
+		long next = this.nextTimerInterrupt();
+		if (next == Long.MAX_VALUE) {
+			this.scheduler.cancel(this.timerEvent);
+		} else {
+			this.scheduler.schedule(this.timerEvent, next);
+		}
+	}
+
+	//syncTima raises the interrupt, this just sets up the next one
+	private void timerDue(long deadline) {
+		this.scheduleTimer();
 	}
 
 	public long getTicks() {
@@ -53,10 +112,10 @@ public class Clock implements IAddressable {
 	public byte read(int addr) {
 		//System.out.println(addr);
 		if (addr == 0xff04) {
-			return (byte)(this.divider >> 8);
+			return (byte)(this.divider() >> 8);
 		}
 		if (addr == 0xff05) {
-			System.out.println("read tima as " + this.tima);
+			this.syncTima();
 			return this.tima;
 		}
 		if (addr == 0xff06) {
@@ -77,12 +136,13 @@ public class Clock implements IAddressable {
 	//Various reads / writes to internal registers
 	@Override
 	public void write(int addr, byte value) {
+		//Count up to now under the old settings first
+		this.syncTima();
 		if (addr == 0xff04) {
-			this.divider = 0;
+			this.divBase = (int) -this.totalTicks;
 		}
 		if (addr == 0xff05) {
 			this.tima = value;
-			System.out.println("wrote tima as " + this.tima);
 		}
 		if (addr == 0xff06) {
 			this.tma = value;
@@ -95,12 +155,13 @@ public class Clock implements IAddressable {
 				case 3: this.timaCounterCritical = 256; break;
 			}
 			if(((value & 4) == 0) && this.started){
-				if((this.divider & this.timaCounterCritical >> 1) != 0){
+				if((this.divider() & this.timaCounterCritical >> 1) != 0){
 					this.tima++;
 				}
 			}
 			this.started = ((value & 4) != 0);
 		}
+		this.scheduleTimer();
 	}
 
 	@Override
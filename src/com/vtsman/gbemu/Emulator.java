@@ -0,0 +1,165 @@
+package com.vtsman.gbemu;
+
+import java.util.function.BooleanSupplier;
+
+//This class puts a whole gameboy together around a ROM and runs it. Nothing here waits on
+//the real time clock - every run method goes as fast as it can and returns once it reaches
+//its goal, which makes it easy to drive from other code. Frame and runUntil goals are only
+//checked between scheduler events (at least once every GPU mode), cycle goals are exact to
+//the instruction
+public class Emulator {
+
+	private final ROM rom;
+	private final InterruptController ic;
+	private final Clock clock;
+	private final IO io;
+	private final GPU gpu;
+	private final CPU cpu;
+	private final Sound sound;
+	private final RAM ram;
+	private final MMU mmu;
+
+	//Runs code out of the block cache instead of an instruction at a time
+	private boolean blockCache = true;
+
+	//Set from any thread to make the current run return. Once stopped, it stays stopped
+	private volatile boolean stopped = false;
+
+	public Emulator(ROM r) {
+		this(r, null);
+	}
+
+	public Emulator(ROM r, GPUDebugScreen debug) {
+		this.rom = r;
+		this.ic = new InterruptController();
+		this.clock = new Clock(this.ic);
+		this.io = new IO();
+		this.gpu = new GPU(this.clock, this.ic, null, this.io, r.isGBC(), debug);
+		//Everything that has banks only gets the ones this cartridge can use
+		this.ram = new RAM(r.isGBC());
+		this.sound = new Sound();
+		this.mmu = new MMU(r, this.gpu, this.ic, this.clock, new ZeroPage(), this.sound, this.ram, this.io);
+		this.cpu = new CPU(this.mmu, this.clock, false);
+		this.gpu.setMMU(this.mmu);
+		this.ic.setCPU(this.cpu);
+		this.cpu.setIO(this.io);
+		this.io.setGPU(this.gpu);
+		this.io.setMMU(this.mmu);
+		this.io.setRAM(this.ram);
+	}
+
+	//Where finished frames should go, null to not keep them anywhere
+	public void setFrameSink(FrameSink sink) {
+		this.gpu.setFrameSink(sink);
+	}
+
+	//Where the hardware reports unhandled registers, DMA transfers and the like. Null (the
+	//default) traces nothing
+	public void setTraceSink(TraceSink trace) {
+		this.cpu.setTraceSink(trace);
+		this.gpu.setTraceSink(trace);
+		this.io.setTraceSink(trace);
+		this.sound.setTraceSink(trace);
+	}
+
+	//Turning the block cache off runs the plain interpreter, which gives exactly the same
+	//results, just slower
+	public void setBlockCache(boolean on) {
+		this.blockCache = on;
+	}
+
+	//Runs until stop is called
+	public void run() {
+		this.run(() -> false, Long.MAX_VALUE);
+	}
+
+	//Runs until the GPU has started n more vertical blanks. Returns false if stopped first
+	public boolean runFrames(int n) {
+		int target = this.gpu.getFrames() + n;
+		return this.run(() -> this.gpu.getFrames() - target >= 0, Long.MAX_VALUE);
+	}
+
+	//Runs for at least n more ticks. Returns false if stopped first
+	public boolean runCycles(long n) {
+		long target = this.clock.getTicks() + n;
+		return this.run(() -> this.clock.getTicks() >= target, target);
+	}
+
+	//Runs until done returns true, which gets checked between scheduler events. Returns false
+	//if stopped first
+	public boolean runUntil(BooleanSupplier done) {
+		return this.run(done, Long.MAX_VALUE);
+	}
+
+	//The CPU also breaks out of its loop at limit, even with no event due
+	private boolean run(BooleanSupplier done, long limit) {
+		Scheduler s = this.clock.getScheduler();
+		while (!done.getAsBoolean()) {
+			if (this.stopped) {
+				return false;
+			}
+			//2^22Hz. The deadline gets checked every time, since an instruction can ask for a
+			//boundary (EI, or writing IE or IF)
+			while (this.clock.getTicks() < Math.min(s.nextDeadline(), limit)) {
+				if (this.blockCache) {
+					this.cpu.executeBlock(limit);
+				} else {
+					this.cpu.execute(limit);
+				}
+			}
+			//Let the hardware catch up (GPU modes, DMA, interrupts)
+			s.runDue(this.clock.getTicks());
+		}
+		return true;
+	}
+
+	//Makes the current run (if any) return at the next scheduler event, and any later run
+	//return straight away
+	public void stop() {
+		this.stopped = true;
+		//Don't leave the save up to the OS
+		this.rom.flush();
+	}
+
+	//Flushes the save and lets go of it, once the emulator is done running for good
+	public void close() {
+		this.rom.close();
+	}
+
+	//How much memory this emulator's RAM, video RAM and cartridge RAM take up
+	public String footprint() {
+		int ram = this.ram.getFootprint();
+		int video = this.gpu.getFootprint();
+		int cart = this.rom.getFootprint();
+		return String.format("%s: %dK RAM, %dK video, %dK cartridge RAM, %dK total", this.rom.isGBC() ? "GBC" : "GB",
+				ram >> 10, video >> 10, cart >> 10, (ram + video + cart) >> 10);
+	}
+
+	public ROM getROM() {
+		return this.rom;
+	}
+
+	public CPU getCPU() {
+		return this.cpu;
+	}
+
+	public MMU getMMU() {
+		return this.mmu;
+	}
+
+	public GPU getGPU() {
+		return this.gpu;
+	}
+
+	public IO getIO() {
+		return this.io;
+	}
+
+	public InterruptController getInterruptController() {
+		return this.ic;
+	}
+
+	public Clock getClock() {
+		return this.clock;
+	}
+}
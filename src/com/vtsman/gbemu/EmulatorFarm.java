@@ -0,0 +1,169 @@
+package com.vtsman.gbemu;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+//This class runs lots of emulators at once on a fixed number of threads. Instead of every
+//emulator getting its own thread that spins forever, each one runs a frame at a time as a
+//task on a work stealing pool, then queues up its next frame behind everyone else's. That
+//way a handful of threads keep every core busy no matter how many emulators there are
+public class EmulatorFarm {
+
+	private final ForkJoinPool pool;
+	private final List<Session> sessions = new ArrayList<Session>();
+	private final long created = System.nanoTime();
+
+	//Sessions that haven't finished yet
+	private int running = 0;
+
+	public EmulatorFarm() {
+		this(Runtime.getRuntime().availableProcessors());
+	}
+
+	public EmulatorFarm(int threads) {
+		//Async mode runs queued tasks oldest first, so every session gets its turn
+		this.pool = new ForkJoinPool(threads, ForkJoinPool.defaultForkJoinWorkerThreadFactory, null, true);
+	}
+
+	//Starts running an emulator for the given number of frames, or until stopped if frames is negative
+	public synchronized Session add(String name, Emulator emu, long frames) {
+		Session s = new Session(name, emu, frames);
+		this.sessions.add(s);
+		this.running++;
+		this.pool.execute(new Step(s));
+		return s;
+	}
+
+	//Waits until every session so far has finished or been stopped
+	public synchronized void awaitAll() throws InterruptedException {
+		while (this.running > 0) {
+			this.wait();
+		}
+	}
+
+	private synchronized void finished(Session s) {
+		this.running--;
+		this.notifyAll();
+	}
+
+	//Stops every session and the threads
+	public void shutdown() {
+		synchronized (this) {
+			for (Session s : this.sessions) {
+				s.stop();
+			}
+		}
+		this.pool.shutdown();
+	}
+
+	//Frames per second for each session (counting only the time it was actually running) and
+	//for the whole farm since it was created
+	public synchronized String report() {
+		StringBuilder out = new StringBuilder();
+		long frames = 0;
+		for (Session s : this.sessions) {
+			long f = s.getFrames();
+			frames += f;
+			out.append(String.format("%-24s %8d frames %10.1f fps%s\n", s.getName(), f, s.getFPS(),
+					s.isCrashed() ? " (crashed)" : s.isDone() ? "" : " (running)"));
+		}
+		double seconds = (System.nanoTime() - this.created) / 1e9;
+		out.append(String.format("%d sessions on %d threads: %d frames in %.2fs, %.1f fps total\n",
+				this.sessions.size(), this.pool.getParallelism(), frames, seconds, frames / seconds));
+		return out.toString();
+	}
+
+	//One emulator running on the farm
+	public class Session {
+		private final String name;
+		private final Emulator emu;
+		private final long limit;
+
+		//Only written by whichever thread is running the session's current frame
+		private volatile long frames = 0;
+		private volatile long busyNanos = 0;
+		private volatile boolean done = false;
+		private volatile boolean crashed = false;
+
+		Session(String name, Emulator emu, long limit) {
+			this.name = name;
+			this.emu = emu;
+			this.limit = limit;
+		}
+
+		//Makes the session finish after its current frame
+		public void stop() {
+			this.emu.stop();
+		}
+
+		public String getName() {
+			return this.name;
+		}
+
+		public Emulator getEmulator() {
+			return this.emu;
+		}
+
+		public long getFrames() {
+			return this.frames;
+		}
+
+		public boolean isDone() {
+			return this.done;
+		}
+
+		//Set if the emulator threw, the session is done as well
+		public boolean isCrashed() {
+			return this.crashed;
+		}
+
+		public double getFPS() {
+			long busy = this.busyNanos;
+			return busy == 0 ? 0 : this.frames / (busy / 1e9);
+		}
+	}
+
+	//Runs one frame of a session, then queues the next one
+	private class Step extends RecursiveAction {
+
+		private static final long serialVersionUID = 4021633527934171520L;
+
+		private final Session s;
+
+		Step(Session s) {
+			this.s = s;
+		}
+
+		@Override
+		protected void compute() {
+			Session s = this.s;
+			boolean more = false;
+			try {
+				long start = System.nanoTime();
+				more = s.emu.runFrames(1);
+				s.busyNanos += System.nanoTime() - start;
+				if (more) {
+					s.frames++;
+				}
+			} catch (Throwable e) {
+				//Errors too - a stack overflow in one emulator shouldn't take the others down
+				System.err.println("Emulator " + s.name + " crashed");
+				e.printStackTrace();
+				s.crashed = true;
+				more = false;
+			} finally {
+				//Whatever happens the session has to either carry on or finish, otherwise
+				//awaitAll never returns
+				if (more && (s.limit < 0 || s.frames < s.limit)) {
+					new Step(s).fork();
+				} else {
+					s.emu.close();
+					s.done = true;
+					finished(s);
+				}
+			}
+		}
+	}
+}
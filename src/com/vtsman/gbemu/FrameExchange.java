@@ -0,0 +1,55 @@
+package com.vtsman.gbemu;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.concurrent.atomic.AtomicInteger;
+
+//This class hands finished frames from the emulator thread to the screen without either side
+//ever waiting on the other. There are three buffers - the emulator draws into one, the screen
+//paints another, and the one in the middle holds the newest finished frame until the screen
+//picks it up. Handing a buffer over is just an atomic swap of the middle one
+public class FrameExchange {
+
+	//Set along with the middle index when the screen hasn't seen that frame yet
+	private static final int FRESH = 4;
+
+	private final BufferedImage[] images = new BufferedImage[3];
+	//The images' pixels, one int (0xRRGGBB) per pixel, row by row
+	private final int[][] pixels = new int[3][];
+
+	//Index of the middle buffer, plus FRESH if it holds a frame the screen hasn't painted
+	private final AtomicInteger middle = new AtomicInteger(2);
+	//Only used by the emulator thread
+	private int back = 0;
+	//Only used by whatever thread paints
+	private int front = 1;
+
+	public FrameExchange(int width, int height) {
+		for (int i = 0; i < 3; i++) {
+			this.images[i] = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+			this.pixels[i] = ((DataBufferInt) this.images[i].getRaster().getDataBuffer()).getData();
+		}
+	}
+
+	//The buffer the emulator should be drawing into
+	public int[] getBackBuffer() {
+		return this.pixels[this.back];
+	}
+
+	//Called by the emulator once a frame is done. Swaps it into the middle and returns the
+	//buffer to draw the next frame into, which still has some old frame in it
+	public int[] present() {
+		this.back = this.middle.getAndSet(this.back | FRESH) & 3;
+		return this.pixels[this.back];
+	}
+
+	//Called by the painting thread. Returns the newest finished frame, or the same one as
+	//last time if the emulator hasn't finished another one
+	public BufferedImage latest() {
+		//Only this thread ever clears FRESH, so it's still set when we swap
+		if ((this.middle.get() & FRESH) != 0) {
+			this.front = this.middle.getAndSet(this.front) & 3;
+		}
+		return this.images[this.front];
+	}
+}
@@ -0,0 +1,11 @@
+package com.vtsman.gbemu;
+
+//This interface is whatever the GPU hands finished frames to - the Screen window, or just
+//memory when running without a display. Frames are 160x144 ints (0xRRGGBB), row by row
+public interface FrameSink {
+	//The pixels the GPU should draw the first frame into
+	public int[] getBackBuffer();
+
+	//Called by the GPU with a finished frame, returns the pixels to draw the next one into
+	public int[] present();
+}
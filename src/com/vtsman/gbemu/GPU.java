@@ -1,10 +1,9 @@
 package com.vtsman.gbemu;
 
-import jdk.internal.org.objectweb.asm.tree.ParameterNode;
-
 import java.awt.Color;
-import java.awt.Graphics2D;
 import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.Arrays;
 
 //Spencer Martin
 //5/20/16
@@ -17,6 +16,8 @@ public class GPU implements IAddressable {
 	private final int RESY = 144;
 
 	private final int OAM_DMA_LEN = 0xa0;
+	//How long a general GBC DMA takes per 0x10 bytes
+	private final int DMA_CHUNK_TICKS = 32;
 
 	private final int HBLANK_DURATION = 204;
 	private final int VBLANK_DURATION = 4560;
@@ -28,39 +29,60 @@ public class GPU implements IAddressable {
 	private final int INT_OAM = 1 << 5;
 	private final int INT_COINC = 1 << 6;
 
-	//Final image to be displayed
+	//Final image to be displayed, only used when there's no screen
 	public final BufferedImage image = new BufferedImage(RESX, RESY, BufferedImage.TYPE_INT_RGB);
+	//The frame being drawn, one int (0xRRGGBB) per pixel, row by row. With a screen this is
+	//one of its buffers and gets swapped for another every frame, otherwise it's image's pixels
+	private int[] frame = ((DataBufferInt) this.image.getRaster().getDataBuffer()).getData();
+
+	//The four DMG shades, lightest first
+	private static final int[] SHADES = { 0xffffff, 0xaaaaaa, 0x555555, 0x000000 };
 	//Current scan line
 	private int scan = 0, scanComp = 0;
 
 	//The state of the GPU, there are four modes that the GPU cycles through
 	private State st;
-	//Calculate delta time for CPU
-	private long ticks = 0;
-	private long cpuLastTicks = 0;
+	//Fires when the current mode is over
+	private Scheduler.Event modeEvent = new Scheduler.Event(this::modeOver);
 
 	private boolean enableIntCoinc = true, enableIntVBlank = true, enableIntHBlank = true, enableIntOAM = true;
 	//VRAM bank, used in GBC only
 	private int bank = 0;
 
 	//Direct memory access registers, GBC feature only
-	//Used to quickly copy large chunks of memory into the VRAM
+	//Used to quickly copy large chunks of memory into the VRAM, 0x10 bytes at a time - either
+	//one chunk every DMA_CHUNK_TICKS, or one at the end of every HBLANK
 	private int dmaSource, dmaDest, dmaLength;
 	private boolean dmaHblank;
 
 	private boolean inDMA = false;
-	private int dmaProgress = 0, dmaIntermediateCountdown = 0;
+	private int dmaProgress = 0;
+	private Scheduler.Event dmaEvent = new Scheduler.Event(this::dmaStep);
+
+	//OAM DMA (0xff46) takes 160 * 4 ticks, then all of sprite memory shows up at once
+	private int oamDmaSource;
+	private Scheduler.Event oamDmaEvent = new Scheduler.Event(this::oamDmaDone);
+
+	//Both kinds of DMA copy through here
+	private final byte[] dmaBuffer = new byte[OAM_DMA_LEN];
 
 	//CPU interface stuff
 	private Clock c;
 	private InterruptController ic;
 
+	//Everything below has one bank on the regular gameboy and two on the GBC
+
 	//'Character RAM' - stores pixles for each tile
-	private byte[][] charRam = new byte[2][0x1800];
+	private final byte[][] charRam;
+
+	//charRam decoded into one byte (0-3) per pixel, 64 per tile, 384 tiles per bank. A tile
+	//gets decoded again the first time it's drawn after something writes to it
+	private final byte[][] tileCache;
+	private final boolean[][] tileDirty;
 
 	//'Background RAM' - store the order of the tiles
-	private byte[][] bg1 = new byte[2][0x400];
-	private byte[][] bg2 = new byte[2][0x400];
+	private final byte[][] bg1;
+	private final byte[][] bg2;
 
 	//Color pallet for background
 	private byte[] bgPallet = { (byte) 0xFF, 0x7F, (byte) 0xBF, 0x03, 0x1F, 0x00, 0x00, 0x00, (byte) 0xFF, 0x7F,
@@ -69,35 +91,54 @@ public class GPU implements IAddressable {
 			(byte) 0x80, 0x69, 0x00, 0x00, (byte) 0xFF, 0x7F, (byte) 0xF7, 0x63, (byte) 0x80, 0x69, 0x00, 0x00,
 			(byte) 0xC0, 0x00, (byte) 0xC0, 0x00, (byte) 0xC0, 0x00, (byte) 0xC0, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00,
 			0x00, 0x00, 0x00 };
+	//bgPallet converted to RGB, 4 colors for each of the 8 pallets
+	private int[] bgColors = new int[8 * 4];
 	//Registers for setting color pallet values
 	private boolean shouldIncBg = false;
 	private int bgIndex = 0;
 
-	//Regular gameboy 'color pallet' register - not real color pallets
-	private int bwBgPalletNum = 0;
+	//Regular gameboy 'color pallet' registers - not real color pallets, they just pick one of
+	//the 4 shades for each color number. One for the background, two for sprites
+	private byte bwBgPallet = (byte) 0xE4;
 	private byte bwBgPallet0 = (byte) 0xE4;
 	private byte bwBgPallet1 = (byte) 0xE4;
+	//The same thing as RGB, sprite pallet 1 starts at 4
+	private int[] bwBgColors = new int[4];
+	private int[] bwSpriteColors = new int[2 * 4];
 
 	//Sprite pallet - stores colors for sprites
 	private byte[] spritePallet = new byte[0x40];
+	//spritePallet converted to RGB, 4 colors for each of the 8 pallets
+	private int[] spriteColors = new int[8 * 4];
 	private boolean shouldIncSprite = false;
 	private int spriteIndex = 0;
 
 	//Sprite memory - each sprite is 4 bytes long
 	private byte[] sprites = new byte[0x100];
-
-	//Foreground map - used to block out sprites
-	private boolean[][] fgMap = new boolean[RESX][RESY];
-
-	//The screen window, used to update the graphics
-	private Screen s;
+	//For each line, a bit for every sprite that covers it. Kept up to date as sprites move so
+	//a line only has to look at the sprites actually on it
+	private long[] lineSprites = new long[RESY];
+	//Sprites picked for the current line, in the order they get drawn
+	private int[] lineObjs = new int[10];
+	//Pixels on the current line already taken by a higher priority sprite
+	private boolean[] spriteTaken = new boolean[RESX];
+
+	//Background priority for the line being drawn, used to block out sprites. The low 2 bits
+	//are the background color number (0 lets sprites through), BG_PRIORITY is set where a GBC
+	//map attribute says the tile goes over every sprite
+	private static final int BG_PRIORITY = 1 << 7;
+	private byte[] linePriority = new byte[RESX];
+
+	//Where finished frames go - the screen window, or memory when headless
+	private FrameSink s;
+	private TraceSink trace;
+
+	private final RegisterTable regs = new RegisterTable("GPU");
 
 	//Various scroll registers - specify where background and windows are rendered
 	private int scrollX = 0, scrollY = 0;
 	private int winX = 7, winY = 0;
 
-	private Graphics2D g2d;
-
 	private int control = 0x91;
 
 	private byte lcdstat = 0x0;
@@ -119,170 +160,192 @@ public class GPU implements IAddressable {
 	private int frameSkip = 0;
 	private int frames = 0;
 
-	public GPU(Clock clock, InterruptController ic, Screen sc, IO io, boolean gbc) {
+	public GPU(Clock clock, InterruptController ic, FrameSink sc, IO io, boolean gbc) {
 		this(clock, ic, sc, io, gbc, null);
 	}
 
-	public GPU(Clock clock, InterruptController ic, Screen sc, IO io, boolean gbc, GPUDebugScreen s) {
+	public GPU(Clock clock, InterruptController ic, FrameSink sc, IO io, boolean gbc, GPUDebugScreen s) {
 		this.c = clock;
 		this.ic = ic;
 		this.st = State.HBLANK;
-		this.s = sc;
-		this.g2d = this.image.createGraphics();
+		this.setFrameSink(sc);
 		this.debug = s;
 		this.color = gbc;
+		int banks = gbc ? 2 : 1;
+		this.charRam = new byte[banks][0x1800];
+		this.tileCache = new byte[banks][384 * 64];
+		this.tileDirty = new boolean[banks][384];
+		this.bg1 = new byte[banks][0x400];
+		this.bg2 = new byte[banks][0x400];
+		for (boolean[] dirty : this.tileDirty) {
+			Arrays.fill(dirty, true);
+		}
+		for (int i = 0; i < this.bgColors.length; i++) {
+			this.bgColors[i] = toRGB(this.bgPallet, i << 1);
+		}
+		toShades(this.bwBgPallet, this.bwBgColors, 0);
+		toShades(this.bwBgPallet0, this.bwSpriteColors, 0);
+		toShades(this.bwBgPallet1, this.bwSpriteColors, 4);
+		this.defineRegisters();
+		this.c.getScheduler().schedule(this.modeEvent, this.c.getTicks() + HBLANK_DURATION);
+	}
+
+	public void setFrameSink(FrameSink sc) {
+		this.s = sc;
+		if (sc != null) {
+			this.frame = sc.getBackBuffer();
+		} else {
+			this.frame = ((DataBufferInt) this.image.getRaster().getDataBuffer()).getData();
+		}
+	}
+
+	//Number of times the GPU has gone into VBLANK
+	public int getFrames() {
+		return this.frames;
 	}
 
 	public void setFrameSkip(int i) {
 		this.frameSkip = i;
 	}
 
-	//Called every clock cycle
-	public void update() {
-		int mult = 1;
+	//Ticks are doubled in GBC double speed mode
+	private int speed() {
 		if (this.m != null && (this.m.read(0xff4d) & 0x80) == 0x80) {
-			mult = 2;
+			return 2;
 		}
-		if(this.inDMA && !this.dmaHblank){
-		//while(this.inDMA){
-			this.dmaIntermediateCountdown++;
-			if(this.dmaIntermediateCountdown / mult >= (160 * 4 * OAM_DMA_LEN / this.dmaLength)){
-				this.dmaIntermediateCountdown = 0;
-				this.m.write(this.dmaDest + this.dmaProgress, this.m.read(this.dmaSource + this.dmaProgress));
-				this.dmaProgress++;
-			}
-			if(this.dmaProgress == this.dmaLength){
-				this.inDMA = false;
-			}
-		}
-			//Get the number of CPU ticks since last instruction
-		this.ticks += this.c.getTicks() - this.cpuLastTicks;
-		this.cpuLastTicks = this.c.getTicks();
+		return 1;
+	}
+
+	//Called by the scheduler when the current mode runs out. Moves on to the next mode and
+	//schedules the end of that one, counting from when this one was due so the CPU running
+	//a few ticks over doesn't add up
+	private void modeOver(long deadline) {
+		int mult = this.speed();
 		//Switch behavior based on current state
 		switch (st) {
 		case HBLANK:
-			if (this.ticks >= HBLANK_DURATION * mult) {
-				//Increment scan line
-				this.scan++;
-				if(this.scan == this.scanComp && this.enableIntCoinc){
-					triggerInterrupt(INT_COINC);
+			//Increment scan line
+			this.scan++;
+			if(this.scan == this.scanComp && this.enableIntCoinc){
+				triggerInterrupt(INT_COINC);
+			}
+			/*if(this.enableIntHBlank){
+				triggerInterrupt(INT_HBLANK);
+			}*/
+			//If the scan line at the very end, update the screen
+			if (this.scan == RESY - 1) {
+				this.frames++;
+				//this.ic.setIntVBlank(true);
+				//If the screen is on and it's not a frame skip, the render
+				if (this.s != null && (this.frames % (this.frameSkip + 1)) == 0) {
+					this.frame = this.s.present();
 				}
-				/*if(this.enableIntHBlank){
-					triggerInterrupt(INT_HBLANK);
-				}*/
-				//If the scan line at the very end, update the screen
-				if (this.scan == RESY - 1) {
-					this.frames++;
-					//this.ic.setIntVBlank(true);
-					//If the screen is on and it's not a frame skip, the render
-					if (this.s != null && (this.frames % (this.frameSkip + 1)) == 0) {
-
-						if ((this.control & 2) != 0 && (this.control & (1 << 7)) != 0) {
-							this.drawSprites();
-							//System.out.println("Drawing sprites");
+				//If the debug screen exists, draw all of the debugging info
+				if (this.debug != null) {
+					this.updateDebugScreen();
+					this.debug.map1.update(this.map1);
+					this.debug.map2.update(this.map2);
+
+					Color[][] bgp = new Color[8][8];
+					for (int i = 0; i < 8; i++) {
+						for (int j = 0; j < 4; j++) {
+							bgp[i][j] = new Color(this.bgColors[(i << 2) | j]);
+							bgp[i][j + 4] = new Color(this.spriteColors[(i << 2) | j]);
 						}
-						this.s.update(this.image);
-					}
-					//If the debug screen exists, draw all of the debugging info
-					if (this.debug != null) {
-						this.updateDebugScreen();
-						this.debug.map1.update(this.map1);
-						this.debug.map2.update(this.map2);
-
-						Color[][] bgp = new Color[8][8];
-						for (int i = 0; i < 8; i++) {
-							for (int j = 0; j < 4; j++) {
-								int n = (i << 3) | (j << 1);
-								int data = ((this.bgPallet[n | 1] & 0x7f) << 8) | (this.bgPallet[n] & 0xff);
-								int r = ((data) & 0x1f);
-								int g = ((data >> 5) & 0x1f);
-								int b = ((data >> 10) & 0x1f);
-
-								bgp[i][j] = new Color(r * CONV, g * CONV, b * CONV);
-
-								data = ((this.spritePallet[n | 1] & 0x7f) << 8) | (this.spritePallet[n] & 0xff);
-								r = ((data) & 0x1f);
-								g = ((data >> 5) & 0x1f);
-								b = ((data >> 10) & 0x1f);
-
-								bgp[i][j + 4] = new Color(r * CONV, g * CONV, b * CONV);
-							}
-						}
-
-						this.debug.updateBgPallet(bgp);
-					}
-					//Trigger the VBLANK interrupt
-					this.ic.vblankInterrupt();
-					this.st = State.VBLANK;
-					//If there's a DMA operation scheduled to run at the beginning of HBLANK, do it
-					//Trigger LCDSTAT interrupt
-					if(this.enableIntVBlank){
-						triggerInterrupt(INT_VBLANK);
 					}
 
-					//Blank the screen
-					this.g2d.setColor(Color.black);
-					this.g2d.drawRect(0, 0, RESX, RESY);
-				} else {
-					//OAM state - in the real gameboy, memory is copied into internal VRAM
-					this.st = State.OAM;
-					if(this.enableIntOAM){
-						triggerInterrupt(INT_OAM);
-					}
+					this.debug.updateBgPallet(bgp);
 				}
-				this.ticks -= HBLANK_DURATION * mult;
-				for(int temp = 0; temp < 0x10 && this.inDMA && this.dmaHblank; temp++){
-					//while(this.inDMA){
-					this.dmaIntermediateCountdown++;
-					if(this.dmaIntermediateCountdown / mult >= (160 * 4 * OAM_DMA_LEN / this.dmaLength)){
-						this.dmaIntermediateCountdown = 0;
-						this.m.write(this.dmaDest + this.dmaProgress, this.m.read(this.dmaSource + this.dmaProgress));
-						this.dmaProgress++;
-					}
-					if(this.dmaProgress == this.dmaLength){
-						this.inDMA = false;
-					}
+				//Trigger the VBLANK interrupt
+				this.ic.vblankInterrupt();
+				this.st = State.VBLANK;
+				//If there's a DMA operation scheduled to run at the beginning of HBLANK, do it
+				//Trigger LCDSTAT interrupt
+				if(this.enableIntVBlank){
+					triggerInterrupt(INT_VBLANK);
 				}
+
+				//Blank the screen
+				Arrays.fill(this.frame, 0);
+			} else {
+				//OAM state - in the real gameboy, memory is copied into internal VRAM
+				this.st = State.OAM;
+				if(this.enableIntOAM){
+					triggerInterrupt(INT_OAM);
+				}
+			}
+			//HBLANK DMA moves 0x10 bytes each time HBLANK ends
+			if (this.inDMA && this.dmaHblank) {
+				this.copyDMAChunk();
 			}
 			break;
 		case VBLANK:
 			//More GPU state emulation
-			if (this.ticks >= VBLANK_DURATION * mult) {
-				this.scan++;
-				if (this.scan > 153) {
-					this.scan = 0;
-					this.st = State.OAM;
-					if(this.enableIntOAM){
-						triggerInterrupt(INT_OAM);
-					}
+			this.scan++;
+			if (this.scan > 153) {
+				this.scan = 0;
+				this.st = State.OAM;
+				if(this.enableIntOAM){
+					triggerInterrupt(INT_OAM);
 				}
-				if(this.scan == this.scanComp && this.enableIntCoinc){
-					triggerInterrupt(INT_COINC);
-				}
-				this.ticks -= VBLANK_DURATION * mult;
+			}
+			if(this.scan == this.scanComp && this.enableIntCoinc){
+				triggerInterrupt(INT_COINC);
 			}
 			break;
 		case OAM:
 			//How boring
-			if (this.ticks >= OAM_DURATION * mult) {
-				this.st = State.VRAM;
-				/*if(this.enableIntOAM){
-					triggerInterrupt(INT_HBLANK);
-				}*/
-				this.ticks -= OAM_DURATION * mult;
-			}
+			this.st = State.VRAM;
+			/*if(this.enableIntOAM){
+				triggerInterrupt(INT_HBLANK);
+			}*/
 			break;
 		case VRAM:
 			//Finally, we can draw a scan line
-			if (this.ticks >= VRAM_DURATION * mult) {
-				this.st = State.HBLANK;
-				this.drawScanLine();
-				this.ticks -= VRAM_DURATION * mult;
-				if(this.enableIntHBlank){
-					triggerInterrupt(INT_HBLANK);
-				}
+			this.st = State.HBLANK;
+			this.drawScanLine();
+			if(this.enableIntHBlank){
+				triggerInterrupt(INT_HBLANK);
 			}
 		}
+		this.c.getScheduler().schedule(this.modeEvent, deadline + this.duration(this.st) * mult);
+	}
+
+	//How long the GPU stays in a mode, in single speed ticks
+	private int duration(State st) {
+		switch (st) {
+		case HBLANK:
+			return HBLANK_DURATION;
+		case VBLANK:
+			return VBLANK_DURATION;
+		case OAM:
+			return OAM_DURATION;
+		default:
+			return VRAM_DURATION;
+		}
+	}
+
+	//Called by the scheduler while a general (not HBLANK) DMA is running
+	private void dmaStep(long deadline) {
+		this.copyDMAChunk();
+		if (this.inDMA) {
+			this.c.getScheduler().schedule(this.dmaEvent, deadline + DMA_CHUNK_TICKS * this.speed());
+		}
+	}
+
+	//Copies the next 0x10 bytes of a GBC DMA. The destination is always somewhere in VRAM
+	private void copyDMAChunk() {
+		this.m.readBlock(this.dmaSource + this.dmaProgress, this.dmaBuffer, 0, 0x10);
+		this.writeBlock(0x8000 + ((this.dmaDest + this.dmaProgress) & 0x1ff0), this.dmaBuffer, 0, 0x10);
+		this.dmaProgress += 0x10;
+		if(this.dmaProgress >= this.dmaLength){
+			this.inDMA = false;
+		}
+	}
+
+	private void oamDmaDone(long deadline) {
+		this.m.readBlock(this.oamDmaSource, this.dmaBuffer, 0, OAM_DMA_LEN);
+		this.writeBlock(0xfe00, this.dmaBuffer, 0, OAM_DMA_LEN);
 	}
 
 	//Does an LCD stat interrupt
@@ -299,32 +362,74 @@ public class GPU implements IAddressable {
 		if (this.scan >= RESY || (this.frames % (this.frameSkip + 1)) != 0) {
 			return;
 		}
-		for (int i = 0; i < RESX; i++) {
-			if ((this.control & (1 << 7)) != 0) {
-				if ((this.control & 1) != 0) {
-					//Background first
-					drawBGPixel(i, scan);
-				}
-				if ((this.control & (1 << 5)) != 0) {
-					//Then window
-					drawWindowPixel(i, scan);
-				}
-			}
+		if ((this.control & (1 << 7)) == 0) {
+			return;
+		}
+		int y = this.scan;
+		Arrays.fill(this.linePriority, (byte) 0);
+		if ((this.control & 1) != 0) {
+			//Background first
+			int rY = (y + scrollY) & 0xff;
+			boolean map2 = (this.control & (1 << 3)) != 0;
+			this.drawTileRun(map2, rY, scrollX & 0xff, 0, RESX);
+		}
+		int wx = (this.winX & 0xff) - 7;
+		int wy = this.winY & 0xff;
+		if ((this.control & (1 << 5)) != 0 && y >= wy && wx < RESX) {
+			//Then window, from its top left corner at (WX - 7, WY) to the right edge
+			boolean map2 = (this.control & (1 << 6)) != 0;
+			int start = Math.max(wx, 0);
+			this.drawTileRun(map2, y - wy, start - wx, start, RESX);
+		}
+		if ((this.control & 2) != 0) {
+			this.drawSprites();
 		}
 	}
 
-	private int getTileIndex(int x, int y) {
-		//Converts (x,y) coords into an index
-		return (((x / 8) & 0x1f) + 32 * ((y / 8) & 0x1f));
+	//Draws pixels from x to end on the current line, starting at (mapX, mapY) in a background
+	//map and wrapping around at 256. Goes a tile at a time so the map and tile set only get
+	//looked at once per tile
+	private void drawTileRun(boolean map2, int mapY, int mapX, int x, int end) {
+		int row = this.scan * RESX;
+		int tY = mapY & 7;
+		int mapRow = ((mapY >> 3) & 0x1f) * 32;
+		boolean signed = (this.control & (1 << 4)) == 0;
+		int[] colors = this.color ? this.bgColors : this.bwBgColors;
+		while (x < end) {
+			int at = mapRow + (mapX >> 3);
+			int index = map2 ? getTile(at, 0) : getTile1(at, 0);
+			//On the GBC, bank 1 of the map has an attribute for each tile - pallet, tile bank,
+			//flips and priority
+			int attr = 0;
+			if (this.color) {
+				attr = map2 ? getTile(at, 1) : getTile1(at, 1);
+			}
+			int tile = signed ? getTS(index) : getTS1(index);
+			int tbank = (attr >> 3) & 1;
+			if (this.tileDirty[tbank][tile]) {
+				this.decodeTile(tbank, tile);
+			}
+			byte[] cache = this.tileCache[tbank];
+			int line = (attr & (1 << 6)) != 0 ? 7 - tY : tY;
+			boolean xflip = (attr & (1 << 5)) != 0;
+			int pallet = (attr & 7) << 2;
+			int prio = attr & BG_PRIORITY;
+			int tX = mapX & 7;
+			int n = Math.min(8 - tX, end - x);
+			int p = (tile << 6) | (line << 3);
+			for (int i = 0; i < n; i++) {
+				int color = cache[p + (xflip ? 7 - (tX + i) : tX + i)];
+				this.frame[row + x + i] = colors[pallet | color];
+				this.linePriority[x + i] = (byte) (color | prio);
+			}
+			x += n;
+			mapX = (mapX + n) & 0xff;
+		}
 	}
 
-	private byte[] getTS1(int tileNum) {
+	private int getTS1(int tileNum) {
 		//Gets tile from tile set 1
-		byte[] out = new byte[16];
-		for (int i = 0; i < 16; i++) {
-			out[i] = this.charRam[this.bank][tileNum * 16 + i];
-		}
-		return out;
+		return tileNum;
 	}
 
 	/*private byte getAttribute(int x, int y, boolean table){
@@ -334,36 +439,27 @@ public class GPU implements IAddressable {
 		}
 	}*/
 
-	private byte[] getTS(int tileNum) {
+	private int getTS(int tileNum) {
 		//gets tile from tile set 2
-		byte[] out = new byte[16];
 		int base = 0x1000 + tileNum * 16;
 		if ((byte) tileNum < 0) {
 			base = 0x800 + 16 * (128 + (byte) tileNum); // I forgot parens here... screwed up everything
 		} //Order of operations man... so hard.
-		for (int i = 0; i < 16; i++) {
-			out[i] = this.charRam[this.bank][base + i];
-		}
-		return out;
+		return base / 16;
 	}
 
 	//Draw debugging info
 	private void updateDebugScreen() {
-		Graphics2D g1 = this.map1.createGraphics();
-		Graphics2D g2 = this.map2.createGraphics();
 		for (int i = 0; i < 16; i++) {
 			for (int j = 0; j < 16; j++) {
-				byte[] tile1 = getTS(i + j * 16);
-				byte[] tile2 = getTS1(i + j * 16);
+				int tile1 = getTS(i + j * 16);
+				int tile2 = getTS1(i + j * 16);
 				for (int x = 0; x < 8; x++) {
 					for (int y = 0; y < 8; y++) {
 						int i1 = this.getPixelFromTile(tile1, x, y);
 						int i2 = this.getPixelFromTile(tile2, x, y);
-						g1.setColor(new Color(i1 * (255 / 3), i1 * (255 / 3), i1 * (255 / 3)));
-						g2.setColor(new Color(i2 * (255 / 3), i2 * (255 / 3), i2 * (255 / 3)));
-
-						g1.drawRect(x + i * 8, y + j * 8, 1, 1);
-						g2.drawRect(x + i * 8, y + j * 8, 1, 1);
+						this.map1.setRGB(x + i * 8, y + j * 8, SHADES[3 - i1]);
+						this.map2.setRGB(x + i * 8, y + j * 8, SHADES[3 - i2]);
 					}
 				}
 			}
@@ -379,143 +475,161 @@ public class GPU implements IAddressable {
 		return this.bg1[bank][index] & 0xff;
 	}
 
-	//Reads a specific pixel from a tile
-	private int getPixelFromTile(byte[] tile, int x, int y) {
-		x = 7 - x;
-		//Pixel data is stored across 2 bytes
-		byte bit1 = tile[2 * (y & 7)];
-		byte bit2 = tile[1 + 2 * (y & 7)];
-		return (((bit1 >> (x & 7)) & 0x1) | (((bit2 >> (x & 7)) & 0x1) << 1));
-	}
-
-	private void drawBGPixel(int x, int y) {
-		//Get pixel data, then draw it
-		int rX = x + scrollX;
-		int rY = y + scrollY;
-		rX &= 0xff;
-		rY &= 0xff;
-		byte[] tile;
-		int index = 0;
-		if ((control & (1 << 3)) != 0) {
-			index = getTile(getTileIndex(rX, rY), 0);
-		} else {
-			index = getTile1(getTileIndex(rX, rY), 0);
-		}
-
-		if ((control & (1 << 4)) == 0) {
-			tile = getTS(index);
-		} else {
-			tile = getTS1(index);
+	//Reads a specific pixel from a tile. Flipping is just a matter of passing 7 - x or 7 - y
+	private int getPixelFromTile(int tile, int x, int y) {
+		if (this.tileDirty[this.bank][tile]) {
+			this.decodeTile(this.bank, tile);
 		}
-		int tX = rX % 8;
-		int tY = rY % 8;
-
-		int color = getPixelFromTile(tile, tX, tY);
-		this.fgMap[x][y] = color != 0;
-
-		//this.g2d.setColor(new Color(color * (0xff / 3), color * (0xff / 3), color * (0xff / 3)));
-		this.g2d.setColor(this.getTileColor(index, rX, rY, color));
-		this.g2d.drawRect(x, y, 1, 1);
+		return this.tileCache[this.bank][(tile << 6) | ((y & 7) << 3) | (x & 7)];
 	}
 
-	private void drawWindowPixel(int x, int y) {
-		//Get pixel data, then draw it
-		x += winX - 7;
-		y -= winY;
-		byte[] tile;
-		int index = getTile(getTileIndex(x - winX + 7, y - winY), 0);
-
-		if ((control & (1 << 6)) != 0) {
-			tile = getTS(index);
-		} else {
-			tile = getTS1(index);
-		}
-		int tX = x % 8;
-		int tY = y % 8;
-
-		int color = getPixelFromTile(tile, tX, tY);
-		if ((color != 0 || ((this.control) & (1 << 1)) != 1) && (x < RESX && y < RESY && x > 0 && y > 0)) {
-			//this.g2d.setColor(new Color(color * (0xff / 3), color * (0xff / 3), color * (0xff / 3)));
-			this.g2d.setColor(this.getTileColor(index, x, y, color));
-			this.g2d.drawRect(x, y, 1, 1);
+	private void decodeTile(int bank, int tile) {
+		byte[] out = this.tileCache[bank];
+		for (int y = 0; y < 8; y++) {
+			//Pixel data is stored across 2 bytes
+			byte bit1 = this.charRam[bank][tile * 16 + 2 * y];
+			byte bit2 = this.charRam[bank][tile * 16 + 2 * y + 1];
+			for (int x = 0; x < 8; x++) {
+				out[(tile << 6) | (y << 3) | x] = (byte) (((bit1 >> (7 - x)) & 0x1) | (((bit2 >> (7 - x)) & 0x1) << 1));
+			}
 		}
+		this.tileDirty[bank][tile] = false;
 	}
 
-	//Various register read/writes
-	@Override
-	public byte read(int addr) {
-		if (addr == 0xff40) {
-			return (byte) this.control;
-		}
-		if (addr == 0xff44) {
-			return (byte) this.scan;
-		}
-		if (addr == 0xff41) {
-			return (byte) (this.st.ordinal() | this.lcdstat | (this.scan == this.scanComp ? 4 : 0));
-		}
-		if (addr == 0xff42) {
-			return (byte) this.scrollY;
-		}
-		if (addr == 0xff43) {
-			return (byte) this.scrollX;
-		}
-		if (addr == 0xff47) {
-			return (byte) this.bwBgPalletNum;
-		}
-		if (addr == 0xff48) {
-			return this.bwBgPallet0;
-		}
-		if (addr == 0xff49) {
-			return this.bwBgPallet1;
-		}
-		if (addr == 0xff4a) {
-			return (byte) this.winY;
-		}
-		if (addr == 0xff4b) {
-			return (byte) this.winX;
-		}
-		if (addr == 0xff4f) {
-			return (byte) this.bank;
-		}
-		if (addr == 0xff51) {
-			return (byte) (this.dmaSource >> 8);
-		}
-		if (addr == 0xff52) {
-			return (byte) (this.dmaSource & 0xff);
-		}
-		if (addr == 0xff53) {
-			return (byte) (this.dmaDest >> 8);
-		}
-		if (addr == 0xff54) {
-			return (byte) (this.dmaDest & 0xff);
-		}
-		if (addr == 0xff55) { //DMA for pallets
-			byte out = 0;
-			if (this.dmaHblank) {
-				out |= 1 << 7;
+	//Sets up the LCD registers. Reads and writes go straight to a getter or setter for each one
+	//instead of down a long list of ifs
+	private void defineRegisters() {
+		RegisterTable r = this.regs;
+		r.define(0xff40, 0xff, 0xff, () -> this.control, v -> {
+			boolean tall = (this.control & 4) != 0;
+			this.control = v;
+			if (tall != ((this.control & 4) != 0)) {
+				//Every sprite just changed height
+				Arrays.fill(this.lineSprites, 0);
+				for (int i = 0; i < 40; i++) {
+					this.markSpriteLines(i, true);
+				}
 			}
-			out |= (this.dmaLength / 0x10) - 1;
-			return out; //TODO fix?
-		}
-		if (addr == 0xff68) {
-			byte out = (byte) this.bgIndex;
+		});
+		r.define(0xff41, 0xff, 0xff, () -> this.st.ordinal() | this.lcdstat | (this.scan == this.scanComp ? 4 : 0), v -> {
+			this.enableIntHBlank = (v & INT_HBLANK) == INT_HBLANK;
+			this.enableIntVBlank = (v & INT_VBLANK) == INT_VBLANK;
+			this.enableIntCoinc = (v & INT_COINC) == INT_COINC;
+			this.enableIntOAM = (v & INT_OAM) == INT_OAM;
+			if (this.trace != null) {
+				this.trace.trace(String.format("Display flags 0x%02x: HBlank %b, VBlank %b, OAM %b, COINC %b", v,
+						this.enableIntHBlank, this.enableIntVBlank, this.enableIntOAM, this.enableIntCoinc));
+			}
+		});
+		r.define(0xff42, 0xff, 0xff, () -> this.scrollY, v -> this.scrollY = v);
+		r.define(0xff43, 0xff, 0xff, () -> this.scrollX, v -> this.scrollX = v);
+		//LY can't be written
+		r.define(0xff44, 0xff, 0x00, () -> this.scan, null);
+		r.define(0xff45, 0xff, 0xff, () -> this.scanComp, v -> {
+			this.scanComp = v;
+			if (this.trace != null) {
+				this.trace.trace("LYC = " + v);
+			}
+		});
+		r.define(0xff46, 0xff, 0xff, null, v -> {
+			this.oamDmaSource = 0x100 * v;
+			this.c.getScheduler().schedule(this.oamDmaEvent, this.c.getTicks() + OAM_DMA_LEN * 4 * this.speed());
+		});
+		r.define(0xff47, 0xff, 0xff, () -> this.bwBgPallet, v -> {
+			this.bwBgPallet = (byte) v;
+			toShades(this.bwBgPallet, this.bwBgColors, 0);
+		});
+		r.define(0xff48, 0xff, 0xff, () -> this.bwBgPallet0, v -> {
+			this.bwBgPallet0 = (byte) v;
+			toShades(this.bwBgPallet0, this.bwSpriteColors, 0);
+		});
+		r.define(0xff49, 0xff, 0xff, () -> this.bwBgPallet1, v -> {
+			this.bwBgPallet1 = (byte) v;
+			toShades(this.bwBgPallet1, this.bwSpriteColors, 4);
+		});
+		r.define(0xff4a, 0xff, 0xff, () -> this.winY, v -> this.winY = v);
+		r.define(0xff4b, 0xff, 0xff, () -> this.winX, v -> this.winX = v);
+		//There's no bank 1 on the regular gameboy
+		r.define(0xff4f, 0xff, 0xff, () -> this.bank, v -> this.bank = v & (this.charRam.length - 1));
+
+		//GBC DMA. The addresses can't change while one is running
+		r.define(0xff51, 0xff, 0xff, () -> this.dmaSource >> 8, v -> {
+			if (!this.inDMA) {
+				this.dmaSource = (v << 8) | (this.dmaSource & 0xf0);
+			}
+		});
+		r.define(0xff52, 0xff, 0xff, () -> this.dmaSource, v -> {
+			if (!this.inDMA) {
+				this.dmaSource = (this.dmaSource & 0xff00) | (v & 0xf0);
+			}
+		});
+		r.define(0xff53, 0xff, 0xff, () -> this.dmaDest >> 8, v -> {
+			if (!this.inDMA) {
+				this.dmaDest = ((v & 0x1f) << 8) | (this.dmaDest & 0xf0);
+			}
+		});
+		r.define(0xff54, 0xff, 0xff, () -> this.dmaDest, v -> {
+			if (!this.inDMA) {
+				this.dmaDest = (this.dmaDest & 0x1f00) | (v & 0xf0);
+			}
+		});
+		r.define(0xff55, 0xff, 0xff, () -> {
+			//Bit 7 clear while a DMA is running, with the number of chunks left minus one
+			if (!this.inDMA) {
+				return 0xff;
+			}
+			return (this.dmaLength - this.dmaProgress) / 0x10 - 1;
+		}, v -> {
+			if (this.inDMA) {
+				//Clearing bit 7 cancels an HBLANK DMA
+				if (this.dmaHblank && (v & (1 << 7)) == 0) {
+					this.inDMA = false;
+				}
+				return;
+			}
+			boolean hblank = (v & (1 << 7)) != 0;
+			if (this.trace != null) {
+				this.trace.trace(String.format("GBC DMA from 0x%04x to 0x%04x, hblank %b", this.dmaSource,
+						0x8000 + this.dmaDest, hblank));
+			}
+			this.dmaLength = 0x10 * ((v & 0x7f) + 1);
+			this.startDMA(hblank);
+		});
+
+		//GBC pallets
+		r.define(0xff68, 0xff, 0xff, () -> this.bgIndex | (this.shouldIncBg ? 1 << 7 : 0), v -> {
+			this.bgIndex = v & 0x3f;
+			this.shouldIncBg = (v & (1 << 7)) != 0;
+		});
+		r.define(0xff69, 0xff, 0xff, () -> this.bgPallet[this.bgIndex], v -> {
+			this.bgPallet[this.bgIndex] = (byte) v;
+			this.bgColors[this.bgIndex >> 1] = toRGB(this.bgPallet, this.bgIndex & ~1);
 			if (this.shouldIncBg) {
-				out |= (1 << 7);
+				this.bgIndex = ((this.bgIndex + 1) & 0x3f);
 			}
-			return out;
-		}
-		if (addr == 0xff69) {
-			return this.bgPallet[this.bgIndex];
-		}
-		if (addr == 0xff6a) {
-			byte out = (byte) this.spriteIndex;
+		});
+		r.define(0xff6a, 0xff, 0xff, () -> this.spriteIndex | (this.shouldIncSprite ? 1 << 7 : 0), v -> {
+			this.spriteIndex = v & 0x3f;
+			this.shouldIncSprite = (v & (1 << 7)) != 0;
+		});
+		r.define(0xff6b, 0xff, 0xff, () -> this.spritePallet[this.spriteIndex], v -> {
+			this.spritePallet[this.spriteIndex] = (byte) v;
+			this.spriteColors[this.spriteIndex >> 1] = toRGB(this.spritePallet, this.spriteIndex & ~1);
 			if (this.shouldIncSprite) {
-				out |= (1 << 7);
+				this.spriteIndex = (this.spriteIndex + 1) & 0x3f;
 			}
-			return out;
-		}
-		if (addr == 0xff6b) {
-			return this.spritePallet[this.spriteIndex];
+		});
+	}
+
+	//Where the GPU reports register writes and DMA transfers, null for nowhere
+	public void setTraceSink(TraceSink trace) {
+		this.trace = trace;
+	}
+
+	@Override
+	public byte read(int addr) {
+		if (addr >= 0xff00) {
+			return this.regs.read(addr);
 		}
 		if (addr >= 0x8000 && addr < 0x9800) {
 			return this.charRam[this.bank][addr - 0x8000];
@@ -534,196 +648,149 @@ public class GPU implements IAddressable {
 
 	@Override
 	public void write(int addr, byte value) {
-		if (addr == 0xff40) {
-			this.control = value & 0xff;
-		}
-		if(addr == 0xff41){
-			System.out.println("Write to display flags: " + value);
-			this.enableIntHBlank = (value & INT_HBLANK) == INT_HBLANK;
-			this.enableIntVBlank = (value & INT_VBLANK) == INT_VBLANK;
-			this.enableIntCoinc = (value & INT_COINC) == INT_COINC;
-			this.enableIntOAM = (value & INT_OAM) == INT_OAM;
-
-			System.out.println("HBlank: " + enableIntHBlank);
-			System.out.println("VBlank: " + enableIntVBlank);
-			System.out.println("OAM: " + enableIntOAM);
-			System.out.println("COINC: " + enableIntCoinc);
-		}
-		if (addr == 0xff42) {
-			this.scrollY = value;
-		}
-		if (addr == 0xff43) {
-			this.scrollX = value;
-		}
-		if (addr == 0xff45){
-			this.scanComp = value & 0xff;
-			System.out.println("LYC = " + this.scanComp);
-		}
-		if (addr == 0xff46) {
-			if(this.inDMA){
-				return;
-			}
-			//System.out.println("OAM DMA");
-			this.dmaSource = 0x100 * (value & 0xff);
-			this.dmaDest = 0xfe00;
-			this.dmaLength = OAM_DMA_LEN;
-
-			this.startDMA(false);
-		}
-		if (addr == 0xff47) {
-			//TODO do black and white palette reordering
-			this.bwBgPalletNum = value & 1;
-		}
-		if (addr == 0xff48) {
-			this.bwBgPallet0 = value;
-		}
-		if (addr == 0xff49) {
-			this.bwBgPallet1 = value;
-		}
-		if (addr == 0xff4a) {
-			this.winY = value;
-		}
-		if (addr == 0xff4b) {
-			this.winX = value;
-		}
-		if (addr == 0xff4f) {
-			this.bank = value & 1;
+		if (addr >= 0xff00) {
+			this.regs.write(addr, value);
+			return;
 		}
-		if (addr == 0xff68) {
-			this.bgIndex = value & 0x3f;
-			this.shouldIncBg = (value & (1 << 7)) != 0;
+		if (addr >= 0x8000 && addr < 0x9800) {
+			this.charRam[this.bank][addr - 0x8000] = value;
+			this.tileDirty[this.bank][(addr - 0x8000) >> 4] = true;
 		}
-		if (addr == 0xff69) {
-			this.bgPallet[this.bgIndex] = value;
-			//System.out.printf("<0x%02x>\n", value);
-			if (this.shouldIncBg) {
-				this.bgIndex = ((this.bgIndex + 1) & 0x3f);
-			}
+		if (addr >= 0x9800 && addr < 0x9C00) {
+			this.bg1[this.bank][addr - 0x9800] = value;
 		}
-		if (addr == 0xff6a) {
-			this.spriteIndex = value & 0x3f;
-			this.shouldIncSprite = (value & (1 << 7)) != 0;
+		if (addr >= 0x9C00 && addr < 0xA000) {
+			this.bg2[this.bank][addr - 0x9C00] = value;
 		}
-		if (addr == 0xff6b) {
-			this.spritePallet[this.spriteIndex] = value;
-			if (this.shouldIncSprite) {
-				this.spriteIndex = (this.spriteIndex + 1) & 0x3f;
+		if (addr >= 0xfe00 && addr < 0xff00) {
+			int i = addr - 0xfe00;
+			if (i < 0xa0 && (i & 3) == 0) {
+				//Sprite moved up or down
+				this.markSpriteLines(i >> 2, false);
+				this.sprites[i] = value;
+				this.markSpriteLines(i >> 2, true);
+			} else {
+				this.sprites[i] = value;
 			}
 		}
-		if (addr == 0xff51) {
-			if(this.inDMA){
-				return;
-			}
-			this.dmaSource |= (value & 0xff) << 8;
+	}
+
+	//VRAM and sprite memory get copied straight into their arrays, anything else (or a copy
+	//that runs over the end of a region) goes a byte at a time
+	@Override
+	public void readBlock(int addr, byte[] out, int off, int len) {
+		int base = this.blockBase(addr, len);
+		if (base >= 0) {
+			System.arraycopy(this.blockArray(base), addr - base, out, off, len);
+		} else {
+			IAddressable.super.readBlock(addr, out, off, len);
 		}
-		if (addr == 0xff52) {
-			if(this.inDMA){
-				return;
-			}
-			this.dmaSource |= (value & 0xf0);
+	}
+
+	@Override
+	public void writeBlock(int addr, byte[] in, int off, int len) {
+		int base = this.blockBase(addr, len);
+		if (base < 0) {
+			IAddressable.super.writeBlock(addr, in, off, len);
+			return;
 		}
-		if (addr == 0xff53) {
-			if(this.inDMA){
-				return;
+		if (base == 0xfe00) {
+			//Take the sprites being written off their lines, then put them back once they've moved
+			int first = (addr - base) >> 2, last = (addr + len - 1 - base) >> 2;
+			for (int i = first; i <= last; i++) {
+				this.markSpriteLines(i, false);
 			}
-			this.dmaDest |= (value & 0x1f) << 8;
-		}
-		if (addr == 0xff54) {
-			if(this.inDMA){
-				return;
+			System.arraycopy(in, off, this.sprites, addr - base, len);
+			for (int i = first; i <= last; i++) {
+				this.markSpriteLines(i, true);
 			}
-			this.dmaDest |= (value & 0xf0);
+			return;
 		}
-		if (addr == 0xff55) {
-			if(this.inDMA){
-				return;
+		System.arraycopy(in, off, this.blockArray(base), addr - base, len);
+		if (base == 0x8000) {
+			for (int t = (addr - base) >> 4; t <= (addr + len - 1 - base) >> 4; t++) {
+				this.tileDirty[this.bank][t] = true;
 			}
-			System.out.println("GBC DMA");
-			System.out.println("From: " + this.dmaSource);
-			System.out.println("To: " + this.dmaDest);
-			boolean hblank = (value & (1 << 7)) != 0;
-			System.out.println("hblank: " + hblank);
-			this.dmaLength = 0x10 * ((value & 0x7f) + 1);
-			/*if (!this.dmaHblank) {
-				for (int i = 0; i < dmaLength; i++) {
-					if (this.m != null) {
-						this.m.write(this.dmaDest + i, this.m.read(this.dmaSource + i));
-					}
-				}
-			}*/
-			this.startDMA(hblank);
 		}
-		if (addr >= 0x8000 && addr < 0x9800) {
-			this.charRam[this.bank][addr - 0x8000] = value;
+	}
+
+	//Start of the VRAM or sprite memory region a run of addresses is in, or -1 if it isn't
+	//all in one
+	private int blockBase(int addr, int len) {
+		int end = addr + len;
+		if (addr >= 0x8000 && end <= 0x9800) {
+			return 0x8000;
 		}
-		if (addr >= 0x9800 && addr < 0x9C00) {
-			this.bg1[this.bank][addr - 0x9800] = value;
+		if (addr >= 0x9800 && end <= 0x9C00) {
+			return 0x9800;
 		}
-		if (addr >= 0x9C00 && addr < 0xA000) {
-			this.bg2[this.bank][addr - 0x9C00] = value;
+		if (addr >= 0x9C00 && end <= 0xA000) {
+			return 0x9C00;
 		}
-		if (addr >= 0xfe00 && addr < 0xff00) {
-			this.sprites[addr - 0xfe00] = value;
+		if (addr >= 0xfe00 && end <= 0xfea0) {
+			return 0xfe00;
 		}
+		return -1;
 	}
 
-	private static final int CONV = (0xff / 0x1f);
-
-	//Gets the color from sprite pallet data
-	private Color getFromSpritePallet(int index, int color) {
-		if (!this.color) {
-			color = 3 - color;
-			return new Color(color * 255 / 3, color * 255 / 3, color * 255 / 3);
+	private byte[] blockArray(int base) {
+		switch (base) {
+		case 0x8000:
+			return this.charRam[this.bank];
+		case 0x9800:
+			return this.bg1[this.bank];
+		case 0x9C00:
+			return this.bg2[this.bank];
+		default:
+			return this.sprites;
 		}
-		int i = (index << 3) | (color << 1);
-		int data = ((this.spritePallet[i | 1] & 0x7f) << 8) | (this.spritePallet[i] & 0xff);
-		int r = (data) & 0x1f;
-		int g = (data >> 5) & 0x1f;
-		int b = (data >> 10) & 0x1f;
+	}
 
-		return new Color((r * 255) / 31, (g * 255) / 31, (b * 255) / 31);
+	private int spriteHeight() {
+		return (this.control & 4) != 0 ? 16 : 8;
 	}
 
-	//Gets the tile color
-	private Color getTileColor(int tileNum, int x, int y, int color) {
-		color = 3 - color;
-		return new Color(color * 255 / 3, color * 255 / 3, color * 255 / 3);
+	//Adds or removes a sprite from the lines it covers
+	private void markSpriteLines(int i, boolean on) {
+		int y = (this.sprites[i * 4] & 0xff) - 16;
+		int end = Math.min(y + this.spriteHeight(), RESY);
+		for (int line = Math.max(y, 0); line < end; line++) {
+			if (on) {
+				this.lineSprites[line] |= 1L << i;
+			} else {
+				this.lineSprites[line] &= ~(1L << i);
+			}
+		}
 	}
 
-	/*private Color getTileColor(int tileNum, int x, int y, int color) {
+	//Gets the color from sprite pallet data
+	private int getFromSpritePallet(int index, int color) {
 		if (!this.color) {
-			color = 3 - color;
-			return new Color(color * 255 / 3, color * 255 / 3, color * 255 / 3);
+			return this.bwSpriteColors[(index << 2) | color];
 		}
-		int attr;
-		if ((control & (1 << 3)) != 0) {
-			attr = getTile(getTileIndex(x, y), 1);
-		} else {
-			attr = getTile1(getTileIndex(x, y), 1);
+		return this.spriteColors[(index << 2) | color];
+	}
+
+	//Fills in the 4 shades picked by a black and white pallet register
+	private static void toShades(byte pallet, int[] out, int offset) {
+		for (int i = 0; i < 4; i++) {
+			out[offset + i] = SHADES[(pallet >> (i << 1)) & 3];
 		}
-		attr = getTile1(getTileIndex(x, y), 1);
-		int cbank = attr & 7;
+	}
 
-		int i = (cbank << 3) | (color << 1);
-		int data = ((this.bgPallet[i | 1] & 0x7f) << 8) | (this.bgPallet[i] & 0xff);
-		//int data = ((this.spritePallet[i | 1] & 0x7f) << 8) | (this.spritePallet[i] & 0xff);
-		int r = ((data) & 0x1f);
-		int g = ((data >> 5) & 0x1f);
-		int b = ((data >> 10) & 0x1f);
+	//Converts a color from pallet RAM (5 bits each of red, green and blue) to RGB
+	private static int toRGB(byte[] pallet, int i) {
+		int data = ((pallet[i | 1] & 0x7f) << 8) | (pallet[i] & 0xff);
+		int r = (data) & 0x1f;
+		int g = (data >> 5) & 0x1f;
+		int b = (data >> 10) & 0x1f;
 
-		return new Color(r * CONV, g * CONV, b * CONV);
-	}*/
+		return (((r * 255) / 31) << 16) | (((g * 255) / 31) << 8) | ((b * 255) / 31);
+	}
 
 	@Override
 	public boolean isAddressInRange(int addr) {
-		if (addr == 0xff44 || addr == 0xff41 || addr == 0xff42 || addr == 0xff43 || addr == 0xff46 || addr == 0xff40 || addr == 0xff4a
-				|| addr == 0xff4b || addr == 0xff47 || addr == 0xff4f || addr == 0xff48 || addr == 0xff49 || addr == 0xff45) {
-			return true;
-		}
-		if (addr >= 0xff51 && addr <= 0xff55) {
-			return true;
-		}
-		if (addr >= 0xff68 && addr <= 0xff6b) {
+		if (this.regs.owns(addr)) {
 			return true;
 		}
 		if (addr >= 0x8000 && addr < 0xA000) {
@@ -735,66 +802,81 @@ public class GPU implements IAddressable {
 		return false;
 	}
 
+	//Bytes used by video RAM, the decoded tiles and sprite memory
+	public int getFootprint() {
+		int bank = 0x1800 + 384 * 64 + 384 + 0x400 + 0x400;
+		return this.charRam.length * bank + this.sprites.length;
+	}
+
 	public void setMMU(MMU m) {
 		this.m = m;
 	}
 
-	//Iterate over all sprites, get data, draw
+	//Draws the sprites on the current line. Like the real thing, only the first 10 sprites on
+	//a line (in OAM order) get drawn, and where they overlap the higher priority one wins
 	private void drawSprites() {
-		boolean isDoubleHeight = ((this.control & 4) != 0);
-		for (int i = 0; i < 40; i++) {
-			byte[] sprite = new byte[4];
-			for (int n = 0; n < 4; n++) {
-				sprite[n] = this.sprites[i * 4 + n];
+		int y = this.scan;
+		int h = this.spriteHeight();
+		int count = 0;
+		long on = this.lineSprites[y];
+		while (on != 0 && count < 10) {
+			int i = Long.numberOfTrailingZeros(on);
+			on &= on - 1;
+			int n = count++;
+			//On the original gameboy the leftmost sprite wins, the GBC just goes by OAM order
+			if (!this.color) {
+				int x = this.sprites[i * 4 + 1] & 0xff;
+				while (n > 0 && (this.sprites[this.lineObjs[n - 1] * 4 + 1] & 0xff) > x) {
+					this.lineObjs[n] = this.lineObjs[n - 1];
+					n--;
+				}
 			}
+			this.lineObjs[n] = i;
+		}
+		if (count == 0) {
+			return;
+		}
+		Arrays.fill(this.spriteTaken, false);
+		int row = y * RESX;
+		for (int s = 0; s < count; s++) {
+			int o = this.lineObjs[s] * 4;
 			//x and y are stored with offsets
-			int y = (sprite[0] & 0xff) - 16;
-			int x = (sprite[1] & 0xff) - 8;
-
+			int sx = (this.sprites[o + 1] & 0xff) - 8;
+			int line = y - ((this.sprites[o] & 0xff) - 16);
 			//this specifies which tile in character ram to render
-			int tileNum = sprite[2] & 0xff;
-			boolean fg = (sprite[3] & (1 << 7)) == 0;
-			boolean yflip = (sprite[3] & (1 << 6)) != 0;
-			boolean xflip = (sprite[3] & (1 << 5)) != 0;
-			boolean tileSet = (sprite[3] & (1 << 4)) != 0;
-			int pallet = (sprite[3] & 7);
-
-			if(isDoubleHeight){
-				if(yflip){
-					drawSpriteTile(tileSet, tileNum, xflip, yflip, x, y + 8, fg, pallet);
-					drawSpriteTile(tileSet, tileNum + 1, xflip, yflip, x, y, fg, pallet);
-				}
-				else{
-					drawSpriteTile(tileSet, tileNum, xflip, yflip, x, y, fg, pallet);
-					drawSpriteTile(tileSet, tileNum + 1, xflip, yflip, x, y + 8, fg, pallet);
-				}
+			int tileNum = this.sprites[o + 2] & 0xff;
+			int attr = this.sprites[o + 3];
+			boolean fg = (attr & (1 << 7)) == 0;
+			boolean yflip = (attr & (1 << 6)) != 0;
+			boolean xflip = (attr & (1 << 5)) != 0;
+			//The GBC has 8 sprite pallets, the original gameboy has 2 picked by bit 4
+			int pallet = this.color ? attr & 7 : (attr >> 4) & 1;
+			//Sprites always use tile set 1, on the GBC bit 3 picks the VRAM bank
+			int tbank = this.color ? (attr >> 3) & 1 : 0;
+
+			if (yflip) {
+				line = h - 1 - line;
 			}
-			else{
-				drawSpriteTile(tileSet, tileNum, xflip, yflip, x, y, fg, pallet);
+			if (h == 16) {
+				tileNum = (tileNum & 0xfe) | (line >> 3);
 			}
-		}
-	}
-
-	private void drawSpriteTile(boolean tileSet, int tileNum, boolean xflip, boolean yflip, int x, int y, boolean fg, int pallet){
-		byte[] tile;
-		if (tileSet) {
-			tile = getTS(tileNum);
-		} else {
-			tile = getTS1(tileNum);
-		}
-
-		//Draw each pixel
-		for (int xOff = 0; xOff < 8; xOff++) {
-			for (int yOff = 0; yOff < 8; yOff++) {
-				int rx = xflip ? x + 7 - xOff : x + xOff;
-				int ry = yflip ? y + 7 - yOff : y + yOff;
-				if (rx < RESX && ry < RESY && rx > 0 && ry > 0) {
-					if (!(this.fgMap[rx][ry] && !fg)) {
-						int color = getPixelFromTile(tile, xOff, yOff);
-						if (color != 0) {
-							this.g2d.setColor(getFromSpritePallet(pallet, color));
-							this.g2d.drawRect(rx, ry, 1, 1);
-						}
+			if (this.tileDirty[tbank][tileNum]) {
+				this.decodeTile(tbank, tileNum);
+			}
+			int p = (tileNum << 6) | ((line & 7) << 3);
+			byte[] cache = this.tileCache[tbank];
+			for (int xOff = 0; xOff < 8; xOff++) {
+				int rx = sx + xOff;
+				if (rx < 0 || rx >= RESX || this.spriteTaken[rx]) {
+					continue;
+				}
+				int color = cache[p + (xflip ? 7 - xOff : xOff)];
+				if (color != 0) {
+					//Even if the background hides it, this sprite still covers up lower priority ones
+					this.spriteTaken[rx] = true;
+					int under = this.linePriority[rx];
+					if ((under & 3) == 0 || (fg && (under & BG_PRIORITY) == 0)) {
+						this.frame[row + rx] = getFromSpritePallet(pallet, color);
 					}
 				}
 			}
@@ -804,8 +886,10 @@ public class GPU implements IAddressable {
 	private void startDMA(boolean hblank){
 		this.inDMA = true;
 		this.dmaProgress = 0;
-		this.dmaIntermediateCountdown = 0;
 		this.dmaHblank = hblank;
+		if (!hblank) {
+			this.c.getScheduler().schedule(this.dmaEvent, this.c.getTicks() + DMA_CHUNK_TICKS * this.speed());
+		}
 	}
 
 	private enum State {
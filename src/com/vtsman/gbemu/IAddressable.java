@@ -16,4 +16,19 @@ public interface IAddressable {
 		this.write(addr, (byte) (value & 0xff));
 		this.write(addr + 1, (byte) (value >> 8));
 	}
+
+	//Copies len bytes starting at addr into out. Devices that keep their memory in an array
+	//should override this (and writeBlock) with an array copy
+	public default void readBlock(int addr, byte[] out, int off, int len) {
+		for (int i = 0; i < len; i++) {
+			out[off + i] = this.read(addr + i);
+		}
+	}
+
+	//Copies len bytes from in to memory starting at addr
+	public default void writeBlock(int addr, byte[] in, int off, int len) {
+		for (int i = 0; i < len; i++) {
+			this.write(addr + i, in[off + i]);
+		}
+	}
 }
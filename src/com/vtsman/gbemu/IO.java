@@ -28,7 +28,7 @@ public class IO implements IAddressable {
 			0x98, 0xD1, 0x71, 0x02, 0x4D, 0x01, 0xC1, 0xFF,      0x0D, 0x00, 0xD3, 0x05, 0xF9, 0x00, 0x0B, 0x00 };
 
 	//@formatter:on
-	private byte[] io = new byte[0x100];
+	private final RegisterTable regs = new RegisterTable("IO");
 
 	//The buttons are split into two banks
 	private boolean dpad = true;
@@ -43,67 +43,75 @@ public class IO implements IAddressable {
 	private MMU mmu;
 	private RAM ram;
 
+	private TraceSink trace;
+
 	private Random r = new Random();
 
-	@Override
-	public byte read(int addr) {
-		if (addr == 0xff00) {
-			byte out = (byte) 0xff;
-			if (dpad) {
-				out = (byte) pad;
-			}
-			if (buttons) {
-				out = (byte) butt;
-			}
-			if (dpad) {
-				out |= 1 << 4;
-			}
-			if (buttons) {
-				out |= 1 << 5;
-			}
-			return out;
+	public IO() {
+		//Everything the other devices don't claim ends up here, so anything left over just
+		//holds its value and gets traced
+		for (int addr = 0xff00; addr < 0xff80; addr++) {
+			this.regs.defineUnhandled(addr);
 		}
-		if (addr == 0xff01) {
-			//TODO serial
+		this.regs.define(0xff00, 0xff, 0x30, this::readJoypad, v -> {
+			this.dpad = ((v & (1 << 4)) == 0);
+			this.buttons = ((v & (1 << 5)) == 0);
+		});
+		//TODO serial
+		this.regs.define(0xff01, 0xff, 0xff);
+		this.regs.define(0xff02, 0xff, 0xff);
+		//KEY1 - bit 7 is the current speed, the game can only set bit 0 to ask for a switch
+		this.regs.define(0xff4d, 0xff, 0x01, () -> this.speedFlag, v -> {
+			this.speedFlag = (byte) ((this.speedFlag & 0x80) | (v & 1));
+		});
+		this.regs.define(0xff70, 0xff, 0x07, null, v -> {
+			this.ram.setBank(v == 0 ? 1 : v);
+			if (this.trace != null) {
+				this.trace.trace("Requested RAM bank change to " + v);
+			}
+		});
+	}
+
+	private int readJoypad() {
+		int out = 0xff;
+		if (dpad) {
+			out = pad;
 		}
-		if (addr == 0xff02) {
-			//TODO serial
+		if (buttons) {
+			out = butt;
 		}
-		if (addr == 0xff70) {
-			return io[0x70];
+		if (dpad) {
+			out |= 1 << 4;
 		}
-		if (addr == 0xff4d) {
-			return this.speedFlag;
+		if (buttons) {
+			out |= 1 << 5;
 		}
-		System.out.printf("IO read from 0x%04x\n", addr);
-		return io[addr - 0xff00];//0;
+		return out;
+	}
+
+	@Override
+	public byte read(int addr) {
+		return this.regs.read(addr);
 	}
 
 	@Override
 	public void write(int addr, byte value) {
-		if (addr == 0xff70) {
-			value &= 7;
-			io[0x70] = value;
-			ram.setBank(value == 0 ? 1 : value);
-			System.out.println("Requested RAM bank change to " + value);
-		} else if (addr == 0xff00) {
-			dpad = ((value & (1 << 4)) == 0);
-			buttons = ((value & (1 << 5)) == 0);
-		} else if (addr == 0xff01) {
-			//TODO serial
-		} else if (addr == 0xff02) {
-			//TODO serial
-		} else if (addr == 0xff4d) {
-			this.speedFlag = value;
-			if ((value & (1 << 7)) != 0) {
-				this.speedFlag |= 1;
-			}
-		} else {
-			System.out.printf("IO write to 0x%04x\n", addr);
-			io[addr - 0xff00] = value;
+		this.regs.write(addr, value);
+	}
+
+	//Called by STOP. Switches between normal and double speed if KEY1 asked for it
+	public void switchSpeed() {
+		if ((this.speedFlag & 1) != 0) {
+			this.speedFlag = (byte) ((this.speedFlag ^ 0x80) & 0x80);
 		}
 	}
 
+	//Where unhandled register accesses and bank changes get reported, null for nowhere
+	public void setTraceSink(TraceSink trace) {
+		this.trace = trace;
+		this.regs.setTraceSink(trace);
+	}
+
 	public void setGPU(GPU g) {
 		this.gpu = g;
 	}
@@ -17,6 +17,9 @@ public class InterruptController implements IAddressable {
 	//The CPU needs to be known, otherwise it can't call the interrupt
 	private CPU c;
 
+	//Interrupts are checked at the scheduler's boundaries rather than after every instruction
+	private Scheduler s;
+
 	private void request(InterruptType type) {
 		//flags |= (type.mask & this.mask);
 		flags |= type.mask;
@@ -24,6 +27,9 @@ public class InterruptController implements IAddressable {
 		if(this.c != null && (type.mask & this.mask) != 0){
 			this.c.exitHalt();
 		}
+		if (this.s != null) {
+			this.s.requestBoundary();
+		}
 	}
 
 	//IAddressable functions
@@ -48,6 +54,10 @@ public class InterruptController implements IAddressable {
 			this.mask = value;
 			//System.out.println(this.mask);
 		}
+		//Either of these can make an interrupt go off
+		if (this.s != null) {
+			this.s.requestBoundary();
+		}
 	}
 
 	@Override
@@ -62,8 +72,13 @@ public class InterruptController implements IAddressable {
 	}
 
 	//Functions to call specific interrupts
+	//This one comes from the Swing thread, so it can't touch the scheduler. The interrupt
+	//gets picked up at the next boundary, which is never more than a GPU mode away
 	public void keyPressInterrupt(int button, boolean pressed) {
-		this.request(InterruptType.JOYPAD);
+		flags |= InterruptType.JOYPAD.mask;
+		if(this.c != null && (InterruptType.JOYPAD.mask & this.mask) != 0){
+			this.c.exitHalt();
+		}
 	}
 
 	public void vblankInterrupt() {
@@ -78,7 +93,7 @@ public class InterruptController implements IAddressable {
 		this.request(InterruptType.LCDSTAT);
 	}
 
-	//Called each clock cycle - will run an interrupt if needed
+	//Called at every scheduler boundary - will run an interrupt if needed
 	private final InterruptType[] order = {InterruptType.VBLANK, InterruptType.LCDSTAT, InterruptType.TIMER, InterruptType.SERIAL, InterruptType.JOYPAD};
 
 	public void updateInterrupts() {
@@ -124,6 +139,12 @@ public class InterruptController implements IAddressable {
 		this.c = c;
 	}
 
+	//Set by the Clock, which owns the scheduler
+	public void setScheduler(Scheduler s) {
+		this.s = s;
+		s.setBoundaryTask(this::updateInterrupts);
+	}
+
 	public enum InterruptType {
 		VBLANK(0), LCDSTAT(1), TIMER(2), SERIAL(3), JOYPAD(4);
 
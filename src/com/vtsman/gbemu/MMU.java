@@ -8,11 +8,72 @@ public class MMU implements IAddressable {
 
 	private IAddressable[] devs;
 
+	//Page table - one device per 256 byte page, built once when the MMU is created.
+	//Pages that are shared between several devices (really just the 0xFF00 IO page)
+	//are left null here and get a second, byte-by-byte table in finePages instead
+	private IAddressable[] pages = new IAddressable[0x100];
+	private IAddressable[][] finePages = new IAddressable[0x100][];
+
+	//Direct view of the cartridge ROM, kept up to date by ROM whenever the bank changes.
+	//Opcode fetches hit this far more than anything else, so they skip the page table
+	private byte[] romBank0;
+	private byte[] romWindow;
+	private int romWindowOffset;
+	private int romBank;
+
+	//Told about every write so it can drop blocks of code that got overwritten
+	private BlockCache blockCache;
+
 	//Zero page is some upper RAM - very fast
 	byte[] zeroPage = new byte[127];
 
 	public MMU(IAddressable... devices) {
 		this.devs = devices;
+		this.buildPageTable();
+	}
+
+	//Asks every device which addresses it owns so that reads and writes never have to
+	private void buildPageTable() {
+		for (int page = 0; page < 0x100; page++) {
+			IAddressable[] fine = new IAddressable[0x100];
+			boolean uniform = true;
+			for (int i = 0; i < 0x100; i++) {
+				fine[i] = findDevice((page << 8) | i);
+				if (fine[i] != fine[0]) {
+					uniform = false;
+				}
+			}
+			if (uniform) {
+				this.pages[page] = fine[0];
+			} else {
+				this.finePages[page] = fine;
+			}
+		}
+		//If one cartridge owns all of 0x0000-0x7fff, let it feed the fast path
+		if (this.pages[0] instanceof ROM) {
+			for (int page = 1; page < 0x80; page++) {
+				if (this.pages[page] != this.pages[0]) {
+					return;
+				}
+			}
+			((ROM) this.pages[0]).setMMU(this);
+		}
+	}
+
+	//Called by ROM when the switchable bank changes
+	void setRomWindow(byte[] bank0, byte[] window, int offset, int bank) {
+		this.romBank0 = bank0;
+		this.romWindow = window;
+		this.romWindowOffset = offset;
+		this.romBank = bank;
+	}
+
+	public int getRomBank() {
+		return this.romBank;
+	}
+
+	public void setBlockCache(BlockCache cache) {
+		this.blockCache = cache;
 	}
 
 	private IAddressable findDevice(int addr) {
@@ -21,24 +82,66 @@ public class MMU implements IAddressable {
 				return devs[i];
 			}
 		}
-		System.err.printf("Error: tried to access unmapped memory address: 0x%04x\n", addr);
-		for (;;)
-			;
-		//return null;
+		return UNMAPPED;
+	}
+
+	private IAddressable getDevice(int addr) {
+		IAddressable dev = this.pages[addr >> 8];
+		if (dev != null) {
+			return dev;
+		}
+		return this.finePages[addr >> 8][addr & 0xff];
 	}
 
 	@Override
 	public byte read(int addr) {
 		addr &= 0xffff;
-		IAddressable dev = findDevice(addr);
-		return dev.read(addr);
+		if (addr < 0x8000 && this.romWindow != null) {
+			if (addr < 0x4000) {
+				return this.romBank0[addr];
+			}
+			return this.romWindow[this.romWindowOffset + addr];
+		}
+		return getDevice(addr).read(addr);
 	}
 
 	@Override
 	public void write(int addr, byte value) {
 		addr &= 0xffff;
-		IAddressable dev = findDevice(addr);
-		dev.write(addr, value);
+		getDevice(addr).write(addr, value);
+		if (this.blockCache != null) {
+			this.blockCache.onWrite(addr);
+		}
+	}
+
+	//Block copies get split up by page, so each device only ever sees addresses it owns
+	@Override
+	public void readBlock(int addr, byte[] out, int off, int len) {
+		while (len > 0) {
+			addr &= 0xffff;
+			int n = this.pages[addr >> 8] != null ? Math.min(len, 0x100 - (addr & 0xff)) : 1;
+			getDevice(addr).readBlock(addr, out, off, n);
+			addr += n;
+			off += n;
+			len -= n;
+		}
+	}
+
+	@Override
+	public void writeBlock(int addr, byte[] in, int off, int len) {
+		while (len > 0) {
+			addr &= 0xffff;
+			int n = this.pages[addr >> 8] != null ? Math.min(len, 0x100 - (addr & 0xff)) : 1;
+			getDevice(addr).writeBlock(addr, in, off, n);
+			if (this.blockCache != null) {
+				for (int i = 0; i < n; i++) {
+					this.blockCache.onWrite(addr + i);
+				}
+			}
+			addr += n;
+			off += n;
+			len -= n;
+		}
 	}
 
 	@Override
@@ -46,4 +149,27 @@ public class MMU implements IAddressable {
 		return true;
 	}
 
+	//Sits in every page table slot that no device claimed
+	private static final IAddressable UNMAPPED = new IAddressable() {
+		@Override
+		public byte read(int addr) {
+			return unmapped(addr);
+		}
+
+		@Override
+		public void write(int addr, byte value) {
+			unmapped(addr);
+		}
+
+		@Override
+		public boolean isAddressInRange(int addr) {
+			return false;
+		}
+
+		private byte unmapped(int addr) {
+			System.err.printf("Error: tried to access unmapped memory address: 0x%04x\n", addr);
+			for (;;)
+				;
+		}
+	};
 }
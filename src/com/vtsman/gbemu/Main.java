@@ -2,7 +2,6 @@ package com.vtsman.gbemu;
 
 import javax.swing.*;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
@@ -21,6 +20,20 @@ import java.util.Vector;
 public class Main {
 
 	public static void main(String[] args) {
+		//gbemu --headless rom.gb [frames] runs without any windows or sound. Headless and farm
+		//runs don't touch .sav files unless -Dgbemu.save=true is given
+		if (args.length >= 2 && args[0].equals("--headless")) {
+			System.setProperty("java.awt.headless", "true");
+			int frames = args.length >= 3 ? Integer.parseInt(args[2]) : Integer.MAX_VALUE;
+			runHeadless(new File(args[1]), frames);
+			return;
+		}
+		//gbemu --farm frames rom.gb rom2.gb ... runs every rom at once, headless
+		if (args.length >= 3 && args[0].equals("--farm")) {
+			System.setProperty("java.awt.headless", "true");
+			runFarm(Integer.parseInt(args[1]), args);
+			return;
+		}
 		try {
 			System.setProperty("apple.laf.useScreenMenuBar", "true");
 			System.setProperty("com.apple.mrj.application.apple.menu.about.name", "GBEmu");
@@ -127,50 +140,80 @@ public class Main {
 		return out;
 	}
 
-	//Runs openEmu in a new thread
-	public static void openNewEmu(File f) {
-		new Thread(() -> openEmu(f, Thread.currentThread())).start();
+	//Every emulator opened from the rom window shares these threads
+	private static EmulatorFarm farm;
+
+	//Opens a rom and runs it on the farm
+	public static synchronized void openNewEmu(File f) {
+		if (farm == null) {
+			farm = new EmulatorFarm();
+		}
+		Emulator emu = openEmu(f);
+		if (emu != null) {
+			farm.add(f.getName(), emu, -1);
+		}
 	}
 
-	//Creates and configures all of the hardware, opens the emulator
-	private static void openEmu(File f, final Thread t) {
+	//Creates and configures all of the hardware, opens the emulator window
+	private static Emulator openEmu(File f) {
 		try {
-			ROM r = new ROM(new FileInputStream(f));
-			InterruptController ic = new InterruptController();
-			Clock clock = new Clock(ic);
+			//Someone is actually playing, so keep their saves
+			ROM r = new ROM(f, true);
 			System.out.printf("Loaded cart of type 0x%02x\n", r.getType());
-			IO io = new IO();
-			GPU g = new GPU(clock, ic, new Screen(ic, r.getTitle(), io, t), io, r.isGBC(), new GPUDebugScreen());
-			RAM ram = new RAM();
-			MMU mmu = new MMU(r, g, ic, clock, new ZeroPage(), new Sound(), ram, io);
-			CPU c = new CPU(mmu, clock, false);
-			g.setMMU(mmu);
-			ic.setCPU(c);
-			io.setGPU(g);
-			io.setMMU(mmu);
-			io.setRAM(ram);
-			//c.addBreakPoint(0xaef);
-			//c.addBreakPoint(0xc36f);
-			//c.addBreakPoint(0xc2c5);
-			//c.addBreakPoint(0xc08b);
-			//c.addBreakPoint(0x2a2);
-			//c.addBreakPoint(0x284);
-
-			executeNormal(c, g, ic);
-
+			Emulator emu = new Emulator(r, new GPUDebugScreen());
+			emu.setFrameSink(new Screen(emu.getInterruptController(), r.getTitle(), emu.getIO(), emu::stop,
+					Integer.getInteger("gbemu.scale", 2)));
+			//-Dgbemu.trace=true prints what the hardware is up to
+			if (Boolean.getBoolean("gbemu.trace")) {
+				emu.setTraceSink(TraceSink.STDOUT);
+			}
+			//emu.getCPU().addBreakPoint(0xaef);
+			//emu.getCPU().addBreakPoint(0xc36f);
+			//emu.getCPU().addBreakPoint(0xc2c5);
+			//emu.getCPU().addBreakPoint(0xc08b);
+			//emu.getCPU().addBreakPoint(0x2a2);
+			//emu.getCPU().addBreakPoint(0x284);
+
+			return emu;
 		} catch (IOException e) {
 			e.printStackTrace();
+			return null;
+		}
+	}
+
+	//Runs every rom given after the frame count on one farm, then prints how fast each went
+	private static void runFarm(int frames, String[] args) {
+		boolean save = Boolean.getBoolean("gbemu.save");
+		EmulatorFarm f = new EmulatorFarm();
+		try {
+			for (int i = 2; i < args.length; i++) {
+				Emulator emu = new Emulator(new ROM(new File(args[i]), save));
+				emu.setFrameSink(new MemoryFrameSink());
+				f.add(new File(args[i]).getName() + "#" + (i - 1), emu, frames);
+			}
+			f.awaitAll();
+			System.out.print(f.report());
+		} catch (IOException | InterruptedException e) {
+			e.printStackTrace();
 		}
+		f.shutdown();
 	}
 
-	//Loop runs a CPU instruction, the updates GPU state and interrupts
-	private static void executeNormal(CPU c, GPU g, InterruptController ic) {
-		while (true) {
-			//2^22Hz
-			c.execute();
-			//c.debugExecute();
-			g.update();
-			ic.updateInterrupts();
+	//Runs a rom with nothing but memory to draw into, for machines without a display. Stops
+	//after the given number of frames
+	private static void runHeadless(File f, int frames) {
+		try {
+			Emulator emu = new Emulator(new ROM(f, Boolean.getBoolean("gbemu.save")));
+			emu.setFrameSink(new MemoryFrameSink());
+
+			long start = System.nanoTime();
+			emu.runFrames(frames);
+			double seconds = (System.nanoTime() - start) / 1e9;
+			System.out.printf("Ran %d frames in %.2fs (%.1f fps)\n", frames, seconds, frames / seconds);
+			System.out.println(emu.footprint());
+			emu.close();
+		} catch (IOException e) {
+			e.printStackTrace();
 		}
 	}
 }
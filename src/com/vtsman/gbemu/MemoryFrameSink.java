@@ -0,0 +1,35 @@
+package com.vtsman.gbemu;
+
+//This class is a frame sink for running headless. It keeps the last finished frame in memory
+//and counts frames, and never touches AWT or Swing
+public class MemoryFrameSink implements FrameSink {
+
+	private int[] back = new int[160 * 144];
+	//Only swapped or read while holding the lock, the GPU never draws into it
+	private int[] front = new int[160 * 144];
+	private volatile long frames = 0;
+
+	@Override
+	public int[] getBackBuffer() {
+		return this.back;
+	}
+
+	@Override
+	public synchronized int[] present() {
+		int[] done = this.back;
+		this.back = this.front;
+		this.front = done;
+		this.frames++;
+		return this.back;
+	}
+
+	//A copy of the last finished frame. Safe to call from any thread while the emulator runs
+	public synchronized int[] getFrame() {
+		return this.front.clone();
+	}
+
+	//How many frames have been finished so far
+	public long getFrames() {
+		return this.frames;
+	}
+}
@@ -6,9 +6,19 @@ package com.vtsman.gbemu;
 //for the normal gameboy
 public class RAM implements IAddressable {
 
-	private byte[][] ram = new byte[8][0x1000];
+	//Each bank is 4K. Bank 0 is always at 0xc000, the one at 0xd000 can be switched on the GBC
+	private final byte[][] ram;
 	private int ind = 1;
 
+	public RAM() {
+		this(true);
+	}
+
+	//The regular gameboy only gets the two banks it can actually see
+	public RAM(boolean gbc) {
+		this.ram = new byte[gbc ? 8 : 2][0x1000];
+	}
+
 	@Override
 	public byte read(int addr) {
 		//Correct address for echo RAM
@@ -33,13 +43,45 @@ public class RAM implements IAddressable {
 		}
 	}
 
+	//Copies a bank at a time, echo RAM included
+	@Override
+	public void readBlock(int addr, byte[] out, int off, int len) {
+		while (len > 0) {
+			int a = addr >= 0xE000 ? addr - 0x2000 : addr;
+			int n = Math.min(len, 0x1000 - (a & 0xfff));
+			System.arraycopy(a < 0xD000 ? ram[0] : ram[ind], a & 0xfff, out, off, n);
+			addr += n;
+			off += n;
+			len -= n;
+		}
+	}
+
+	@Override
+	public void writeBlock(int addr, byte[] in, int off, int len) {
+		while (len > 0) {
+			int a = addr >= 0xE000 ? addr - 0x2000 : addr;
+			int n = Math.min(len, 0x1000 - (a & 0xfff));
+			System.arraycopy(in, off, a < 0xD000 ? ram[0] : ram[ind], a & 0xfff, n);
+			addr += n;
+			off += n;
+			len -= n;
+		}
+	}
+
 	@Override
 	public boolean isAddressInRange(int addr) {
 		return addr < 0xFE00 && addr >= 0xC000;
 	}
 
 	public void setBank(int bank) {
-		this.ind = bank;
+		//Banks that don't exist can't be switched to
+		if (bank < this.ram.length) {
+			this.ind = bank;
+		}
+	}
+
+	public int getFootprint() {
+		return this.ram.length * 0x1000;
 	}
 
 }
@@ -1,8 +1,22 @@
 package com.vtsman.gbemu;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
-import java.util.ArrayList;
+import java.lang.ref.WeakReference;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
 
 import com.vtsman.gbemu.mbc.DummyMBC;
 import com.vtsman.gbemu.mbc.MBC;
@@ -17,24 +31,61 @@ import com.vtsman.gbemu.mbc.MBCTimer;
 //a memory bank controller, extra RAM, a real time clock, or some other peripheral
 public class ROM implements IAddressable {
 
-	private byte[] data;
+	//Shared with every other cartridge loaded from the same image, so this must never be
+	//written to
+	private final byte[] data;
 	private MBC mbc;
-	private byte[] cram;
+	//Cartridge RAM. For battery backed carts loaded from a file, this is a .sav file mapped
+	//into memory
+	private ByteBuffer cram;
+	//Banks past the end of the RAM wrap around
+	private int cramMask;
+	//The .sav file behind cram, if there is one. The channel stays open to hold the lock, so
+	//no other cartridge can map the same save while this one is using it
+	private FileChannel saveChannel;
+	private MappedByteBuffer saveMap;
 
+	//The switchable ROM bank (0x4000-0x7fff) as an array plus an offset, so a read is
+	//just window[offset + addr]. Only recomputed when a write to the MBC changes the bank
+	private int romBank;
+	private byte[] bankWindow;
+	private int bankOffset;
+
+	//Banks past the end of the ROM read back as zeros
+	private static final byte[] EMPTY_BANK = new byte[0x4000];
+
+	//Every ROM image loaded so far, by the SHA-256 of its contents. Lots of emulators running
+	//the same game all read from one array instead of each having a copy. The references are
+	//weak so an image goes away once the last cartridge using it does
+	private static final Map<String, WeakReference<byte[]>> images = new HashMap<String, WeakReference<byte[]>>();
+
+	//The MMU keeps its own copy of the window for instruction fetches
+	private MMU mmu;
+
+	//Doesn't touch any save file, the cartridge RAM only lives in memory
+	public ROM(File f) throws IOException {
+		this(f, false);
+	}
+
+	//If save is set, battery backed RAM gets saved next to the file, as name.sav
+	public ROM(File f, boolean save) throws IOException {
+		this(Files.readAllBytes(f.toPath()), save ? saveFileFor(f) : null);
+	}
+
+	//Reads the whole stream, but doesn't close it
 	public ROM(InputStream source) throws IOException {
-		//Load rom data into array
-		ArrayList<Byte> buffer = new ArrayList<Byte>();
-		while (source.available() > 0) {
-			byte[] b = new byte[source.available()];
-			source.read(b);
-			for (byte by : b) {
-				buffer.add(by);
-			}
-		}
-		data = new byte[buffer.size()];
-		for (int i = 0; i < data.length; i++) {
-			data[i] = buffer.get(i);
-		}
+		this(source.readAllBytes(), null);
+	}
+
+	//The image gets copied, since it may end up shared and the caller could still change theirs
+	public ROM(byte[] image) {
+		this(image.clone(), null);
+	}
+
+	//Takes the image over, nothing else may hold on to it
+	private ROM(byte[] image, File save) {
+		this.data = share(image);
+		boolean hasRam = false;
 		//Parse out info from cartridge header, set MBC accordingly
 		switch (this.getType()) {
 			case 0x01:
@@ -42,27 +93,27 @@ public class ROM implements IAddressable {
 				break;
 			case 0x02:
 				this.mbc = new MBC1(true, false);
-				this.cram = new byte[131072];
+				hasRam = true;
 				break;
 			case 0x03:
 				this.mbc = new MBC1(true, true);
-				this.cram = new byte[131072];
+				hasRam = true;
 				break;
 		case 0x10:
 		case 0x12:
 		case 0x13:
-			this.cram = new byte[131072];
+			hasRam = true;
 		case 0x0f:
 		case 0x11:
 			this.mbc = new MBC3();
 			break;
 		case 0x1A:
 		case 0x1B:
-			this.cram = new byte[131072];
-		case 0x19:
-		case 0x1C:
 		case 0x1D:
 		case 0x1E:
+			hasRam = true;
+		case 0x19:
+		case 0x1C:
 			this.mbc = new MBC5();
 			break;
 		default:
@@ -70,6 +121,11 @@ public class ROM implements IAddressable {
 			this.mbc = new DummyMBC();
 			break;
 		}
+		if (hasRam) {
+			this.cram = this.openRam(save);
+			this.cramMask = this.cram.capacity() - 1;
+		}
+		this.mapRomBank(this.mbc.getRomBank());
 		//System.out.println(Integer.toHexString(data.length));
 	}
 
@@ -88,18 +144,15 @@ public class ROM implements IAddressable {
 						return time.getTimerValue();
 					}
 				}
-				return cram[(addr - 0xa000) + (0x2000 * this.mbc.getRamBank())];
+				return cram.get(((addr - 0xa000) + (0x2000 * this.mbc.getRamBank())) & cramMask);
 			} else {
 				return 0;
 				//System.out.printf("Error: attempted to read from cartridge ram on incompatible cart @ 0x%04x\n", addr);
 				//System.exit(-1);
 			}
 		}
-		if (addr - 0x4000 + (0x4000 * this.mbc.getRomBank()) > data.length) {
-			return 0;
-		}
 		//Reads data from ROM at correct ROM page
-		return data[addr - 0x4000 + (0x4000 * this.mbc.getRomBank())];
+		return bankWindow[bankOffset + addr];
 	}
 
 	@Override
@@ -107,7 +160,7 @@ public class ROM implements IAddressable {
 		//Writing to CRAM makes sense
 		if (addr >= 0xa000 && addr < 0xc000) {
 			if (cram != null && this.mbc.ramEnabled()) {
-				cram[(addr - 0xa000) + (0x2000 * this.mbc.getRamBank())] = value;
+				cram.put(((addr - 0xa000) + (0x2000 * this.mbc.getRamBank())) & cramMask, value);
 			} else {
 				//System.out.printf("Error: attempted to write to cartridge ram on incompatible cart @ 0x%04x\n", addr);
 				//System.exit(-1);
@@ -116,14 +169,165 @@ public class ROM implements IAddressable {
 			//Writing to ROM does not, unless you recognize that you're actually
 			//writing to the MBC
 			this.mbc.romWrite(addr, value);
+			if (this.mbc.getRomBank() != this.romBank) {
+				this.mapRomBank(this.mbc.getRomBank());
+			}
+		}
+	}
+
+	//ROM reads are straight array copies, cartridge RAM (which might be the timer) goes a byte
+	//at a time. Writes always go a byte at a time since they may be talking to the MBC
+	@Override
+	public void readBlock(int addr, byte[] out, int off, int len) {
+		if (addr >= 0 && addr + len <= 0x4000 && addr + len <= data.length) {
+			System.arraycopy(data, addr, out, off, len);
+		} else if (addr >= 0x4000 && addr + len <= 0x8000) {
+			System.arraycopy(bankWindow, bankOffset + addr, out, off, len);
+		} else {
+			IAddressable.super.readBlock(addr, out, off, len);
+		}
+	}
+
+	//Points the bank window at the given ROM bank, and tells the MMU about it
+	private void mapRomBank(int bank) {
+		this.romBank = bank;
+		int base = 0x4000 * bank;
+		if (base >= 0 && base + 0x4000 <= data.length) {
+			this.bankWindow = data;
+			this.bankOffset = base - 0x4000;
+		} else if (base >= 0 && base < data.length) {
+			//Last bank of an oddly sized ROM, pad it out with zeros
+			this.bankWindow = Arrays.copyOfRange(data, base, base + 0x4000);
+			this.bankOffset = -0x4000;
+		} else {
+			this.bankWindow = EMPTY_BANK;
+			this.bankOffset = -0x4000;
+		}
+		if (this.mmu != null) {
+			this.mmu.setRomWindow(data, this.bankWindow, this.bankOffset, this.romBank);
 		}
 	}
 
+	//Called by the MMU when it finds this cartridge in its page table
+	void setMMU(MMU m) {
+		this.mmu = m;
+		this.mmu.setRomWindow(data, this.bankWindow, this.bankOffset, this.romBank);
+	}
+
 	@Override
 	public boolean isAddressInRange(int addr) {
 		return (addr >= 0 && addr < 0x8000) || (addr >= 0xa000 && addr < 0xc000);
 	}
 
+	//Cartridge RAM is sized from the header. Battery backed RAM is a .sav file mapped straight
+	//into memory - every write lands in the file's pages as it happens and the OS writes them
+	//out whenever it likes, so saves survive the emulator crashing without the CPU ever waiting
+	//on a disk. Anything else (or a save that can't be opened or is already in use) is just
+	//kept in memory
+	private ByteBuffer openRam(File save) {
+		int size = this.getRamSize();
+		//Some carts with RAM claim to have none, give them one bank
+		if (size == 0) {
+			size = 0x2000;
+		}
+		if (save != null && this.hasBattery()) {
+			FileChannel ch = null;
+			try {
+				ch = FileChannel.open(save.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE,
+						StandardOpenOption.CREATE);
+				FileLock lock;
+				try {
+					lock = ch.tryLock();
+				} catch (OverlappingFileLockException e) {
+					//Another cartridge in this JVM has it
+					lock = null;
+				}
+				if (lock != null) {
+					this.saveMap = ch.map(FileChannel.MapMode.READ_WRITE, 0, size);
+					this.saveChannel = ch;
+					return this.saveMap;
+				}
+				System.err.println("WARNING: Save file " + save + " is in use by another emulator, this game won't be saved");
+			} catch (IOException e) {
+				System.err.println("WARNING: Couldn't open save file " + save + ", this game won't be saved");
+				e.printStackTrace();
+			}
+			closeQuietly(ch);
+		}
+		return ByteBuffer.wrap(new byte[size]);
+	}
+
+	//Writes any changed save RAM out to the .sav file now instead of whenever the OS gets to it
+	public void flush() {
+		if (this.saveMap != null) {
+			this.saveMap.force();
+		}
+	}
+
+	//Flushes the save and gives up the lock on it, so something else can open it. The
+	//cartridge shouldn't be used after this
+	public void close() {
+		if (this.saveChannel != null) {
+			this.flush();
+			closeQuietly(this.saveChannel);
+			this.saveChannel = null;
+		}
+	}
+
+	private static void closeQuietly(FileChannel ch) {
+		if (ch != null) {
+			try {
+				ch.close();
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+		}
+	}
+
+	//game.gb saves to game.sav
+	private static File saveFileFor(File rom) {
+		String name = rom.getName();
+		int dot = name.lastIndexOf('.');
+		if (dot > 0) {
+			name = name.substring(0, dot);
+		}
+		return new File(rom.getAbsoluteFile().getParentFile(), name + ".sav");
+	}
+
+	//Returns the cached image with the same contents if there is one, otherwise caches this one
+	private static byte[] share(byte[] image) {
+		String key = hash(image);
+		synchronized (images) {
+			WeakReference<byte[]> ref = images.get(key);
+			byte[] shared = ref == null ? null : ref.get();
+			if (shared != null) {
+				return shared;
+			}
+			//Clean out images nobody is using any more
+			for (Iterator<WeakReference<byte[]>> it = images.values().iterator(); it.hasNext();) {
+				if (it.next().get() == null) {
+					it.remove();
+				}
+			}
+			images.put(key, new WeakReference<byte[]>(image));
+			return image;
+		}
+	}
+
+	private static String hash(byte[] image) {
+		try {
+			byte[] digest = MessageDigest.getInstance("SHA-256").digest(image);
+			StringBuilder out = new StringBuilder();
+			for (byte b : digest) {
+				out.append(String.format("%02x", b));
+			}
+			return out.toString();
+		} catch (NoSuchAlgorithmException e) {
+			//Every JVM has to have SHA-256
+			throw new IllegalStateException(e);
+		}
+	}
+
 	//Parse out info from cart header
 	public String getTitle() {
 		byte[] str = new byte[17];
@@ -137,6 +341,52 @@ public class ROM implements IAddressable {
 		return data[0x147];
 	}
 
+	//Bytes of cartridge RAM kept in memory. The ROM image is shared and a mapped save lives
+	//in the OS's file cache, so neither counts
+	public int getFootprint() {
+		if (this.cram == null || this.cram.isDirect()) {
+			return 0;
+		}
+		return this.cram.capacity();
+	}
+
+	//Bytes of cartridge RAM according to the header, 0 if it says there isn't any
+	public int getRamSize() {
+		switch (data[0x149]) {
+		case 1:
+			return 0x800;
+		case 2:
+			return 0x2000;
+		case 3:
+			return 0x8000;
+		case 4:
+			return 0x20000;
+		case 5:
+			return 0x10000;
+		default:
+			return 0;
+		}
+	}
+
+	public boolean hasBattery() {
+		switch (this.getType() & 0xff) {
+		case 0x03:
+		case 0x06:
+		case 0x09:
+		case 0x0D:
+		case 0x0F:
+		case 0x10:
+		case 0x13:
+		case 0x1B:
+		case 0x1E:
+		case 0x22:
+		case 0xFF:
+			return true;
+		default:
+			return false;
+		}
+	}
+
 	public boolean isGBC() {
 		return (data[0x143] & 0xff) == 0x80 || (data[0x143] & 0xff) == 0xC0;
 	}
@@ -0,0 +1,89 @@
+package com.vtsman.gbemu;
+
+//This class holds a device's IO registers (somewhere in 0xff00-0xff7f). Each register has a
+//read mask (bits outside it always read back as 1), a write mask (bits outside it keep their
+//old value), and can have a getter and setter for registers that are really some other piece
+//of state or do something when written. Finding a register is just an array index instead of
+//a long chain of ifs
+public class RegisterTable {
+
+	//Returns the current value of a register that isn't just stored
+	public interface Getter {
+		public int get();
+	}
+
+	//Called after a write with the new value (write mask already applied)
+	public interface Setter {
+		public void set(int value);
+	}
+
+	private final String name;
+
+	private final byte[] values = new byte[0x80];
+	private final int[] readMask = new int[0x80];
+	private final int[] writeMask = new int[0x80];
+	private final Getter[] getters = new Getter[0x80];
+	private final Setter[] setters = new Setter[0x80];
+	private final boolean[] defined = new boolean[0x80];
+	//Registers that nothing actually implements, accesses to them get traced
+	private final boolean[] unhandled = new boolean[0x80];
+
+	private TraceSink trace;
+
+	public RegisterTable(String name) {
+		this.name = name;
+	}
+
+	public void setTraceSink(TraceSink trace) {
+		this.trace = trace;
+	}
+
+	//A register that just holds whatever was written to it
+	public void define(int addr, int readMask, int writeMask) {
+		this.define(addr, readMask, writeMask, null, null);
+	}
+
+	public void define(int addr, int readMask, int writeMask, Getter g, Setter s) {
+		int i = addr & 0x7f;
+		this.defined[i] = true;
+		this.unhandled[i] = false;
+		this.readMask[i] = readMask;
+		this.writeMask[i] = writeMask;
+		this.getters[i] = g;
+		this.setters[i] = s;
+	}
+
+	//A plain register with no known function, for the leftovers nobody else claims
+	public void defineUnhandled(int addr) {
+		this.define(addr, 0xff, 0xff);
+		this.unhandled[addr & 0x7f] = true;
+	}
+
+	public boolean owns(int addr) {
+		return addr >= 0xff00 && addr < 0xff80 && this.defined[addr & 0x7f];
+	}
+
+	public byte read(int addr) {
+		int i = addr & 0x7f;
+		if (this.unhandled[i] && this.trace != null) {
+			this.trace.trace(String.format("%s read from 0x%04x", this.name, addr));
+		}
+		Getter g = this.getters[i];
+		int value = g != null ? g.get() : this.values[i];
+		return (byte) (value | ~this.readMask[i]);
+	}
+
+	public void write(int addr, byte value) {
+		int i = addr & 0x7f;
+		if (this.unhandled[i] && this.trace != null) {
+			this.trace.trace(String.format("%s write of 0x%02x to 0x%04x", this.name, value & 0xff, addr));
+		}
+		int mask = this.writeMask[i];
+		int v = ((this.values[i] & ~mask) | (value & mask)) & 0xff;
+		this.values[i] = (byte) v;
+		Setter s = this.setters[i];
+		if (s != null) {
+			s.set(v);
+		}
+	}
+}
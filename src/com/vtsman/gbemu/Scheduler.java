@@ -0,0 +1,162 @@
+package com.vtsman.gbemu;
+
+//This class keeps track of when the hardware next needs attention. Instead of polling the
+//GPU and interrupts after every instruction, each piece of hardware schedules an event at
+//the tick it next changes state, and the CPU runs freely until the earliest one
+public class Scheduler {
+
+	//Implemented by whatever an event should do when it comes due
+	public interface Task {
+		//deadline is the tick the event was scheduled for, which is usually a little in the past
+		public void fire(long deadline);
+	}
+
+	//Something that can be scheduled. Each piece of hardware keeps its own events around and
+	//reschedules them, so nothing gets allocated while the emulator runs
+	public static class Event {
+		private final Task t;
+		private long deadline;
+		//Position in the heap, -1 if not scheduled
+		private int index = -1;
+
+		public Event(Task t) {
+			this.t = t;
+		}
+
+		public boolean isScheduled() {
+			return this.index >= 0;
+		}
+
+		public long getDeadline() {
+			return this.deadline;
+		}
+	}
+
+	//Binary min-heap ordered by deadline
+	private Event[] heap = new Event[8];
+	private int size = 0;
+
+	//Deadline of the earliest event, or Long.MIN_VALUE if something asked for a boundary
+	private long next = Long.MAX_VALUE;
+
+	//Runs after the due events every time the CPU stops, used for interrupt checks
+	private Runnable boundary;
+
+	//The CPU should keep running while the clock is before this
+	public long nextDeadline() {
+		return this.next;
+	}
+
+	//Schedules an event, moving it if it was already scheduled
+	public void schedule(Event e, long deadline) {
+		if (e.index >= 0) {
+			this.remove(e);
+		}
+		if (this.size == this.heap.length) {
+			Event[] bigger = new Event[this.size * 2];
+			System.arraycopy(this.heap, 0, bigger, 0, this.size);
+			this.heap = bigger;
+		}
+		e.deadline = deadline;
+		e.index = this.size;
+		this.heap[this.size++] = e;
+		this.siftUp(e.index);
+		this.refreshNext();
+	}
+
+	public void cancel(Event e) {
+		if (e.index >= 0) {
+			this.remove(e);
+			this.refreshNext();
+		}
+	}
+
+	public void setBoundaryTask(Runnable r) {
+		this.boundary = r;
+	}
+
+	//Makes the CPU stop after the current instruction so the boundary task gets to run.
+	//Only call this from the emulator thread
+	public void requestBoundary() {
+		this.next = Long.MIN_VALUE;
+	}
+
+	//Fires every event due at or before now, then the boundary task
+	public void runDue(long now) {
+		while (this.size > 0 && this.heap[0].deadline <= now) {
+			Event e = this.heap[0];
+			this.remove(e);
+			e.t.fire(e.deadline);
+		}
+		if (this.boundary != null) {
+			this.boundary.run();
+		}
+		this.updateNext();
+	}
+
+	private void updateNext() {
+		this.next = this.size > 0 ? this.heap[0].deadline : Long.MAX_VALUE;
+	}
+
+	//Same as updateNext, but a boundary that was asked for still happens
+	private void refreshNext() {
+		if (this.next != Long.MIN_VALUE) {
+			this.updateNext();
+		}
+	}
+
+	private void remove(Event e) {
+		int i = e.index;
+		e.index = -1;
+		this.size--;
+		if (i == this.size) {
+			this.heap[i] = null;
+			return;
+		}
+		//Fill the hole with the last event and let it find its place
+		Event last = this.heap[this.size];
+		this.heap[this.size] = null;
+		this.heap[i] = last;
+		last.index = i;
+		this.siftDown(i);
+		this.siftUp(last.index);
+	}
+
+	private void siftUp(int i) {
+		Event e = this.heap[i];
+		while (i > 0) {
+			int parent = (i - 1) >> 1;
+			Event p = this.heap[parent];
+			if (p.deadline <= e.deadline) {
+				break;
+			}
+			this.heap[i] = p;
+			p.index = i;
+			i = parent;
+		}
+		this.heap[i] = e;
+		e.index = i;
+	}
+
+	private void siftDown(int i) {
+		Event e = this.heap[i];
+		while (true) {
+			int child = 2 * i + 1;
+			if (child >= this.size) {
+				break;
+			}
+			if (child + 1 < this.size && this.heap[child + 1].deadline < this.heap[child].deadline) {
+				child++;
+			}
+			Event c = this.heap[child];
+			if (e.deadline <= c.deadline) {
+				break;
+			}
+			this.heap[i] = c;
+			c.index = i;
+			i = child;
+		}
+		this.heap[i] = e;
+		e.index = i;
+	}
+}
@@ -1,11 +1,18 @@
 package com.vtsman.gbemu;
 
+import java.awt.Canvas;
 import java.awt.Dimension;
+import java.awt.EventQueue;
 import java.awt.Graphics;
 import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.Toolkit;
 import java.awt.event.KeyEvent;
 import java.awt.event.KeyListener;
+import java.awt.image.BufferStrategy;
 import java.awt.image.BufferedImage;
+import java.awt.image.VolatileImage;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import javax.swing.JFrame;
 
@@ -13,27 +20,44 @@ import javax.swing.JFrame;
 //5/20/16
 //This class simulates the Gameboy's screen, which takes the buffered image from the GPU
 //and exposes it to the user
-public class Screen extends JFrame {
+public class Screen extends JFrame implements FrameSink {
 
 	private static final long serialVersionUID = 7640331520500116820L;
 
-	private BufferedImage image = new BufferedImage(160, 144, BufferedImage.TYPE_INT_RGB); //temp image
-	private Graphics2D g2d;
+	private static final int RESX = 160, RESY = 144;
+
+	//Frames come in from the emulator thread through here, so painting never has to wait on it
+	private final FrameExchange frames = new FrameExchange(RESX, RESY);
+
+	//Frames are drawn onto a canvas with its own buffer strategy rather than through Swing
+	private final Display display = new Display();
+	//The latest frame gets copied here first so scaling it up happens on the graphics card
+	private VolatileImage vram;
+	//Whole number scale factor for the window, always drawn nearest neighbor so pixels stay sharp
+	private final int scale;
+	private final RenderingHints hints = new RenderingHints(RenderingHints.KEY_INTERPOLATION,
+			RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR);
+	//Set while a render is waiting on the EDT, so a slow EDT doesn't pile them up
+	private final AtomicBoolean renderQueued = new AtomicBoolean(false);
 	private String t;
 	private int lastInstruction = 0;
 	private Thread thread;
 
-	public Screen(InterruptController c, String title, IO io, final Thread t) {
-		this.g2d = this.image.createGraphics();
+	public Screen(InterruptController c, String title, IO io, final Runnable onClose) {
+		this(c, title, io, onClose, 2);
+	}
+
+	public Screen(InterruptController c, String title, IO io, final Runnable onClose, int scale) {
+		this.scale = Math.max(1, scale);
 		//Handle controls
 		this.addWindowListener(new java.awt.event.WindowAdapter() {
 			@Override
 			public void windowClosing(java.awt.event.WindowEvent windowEvent) {
-				if(t != null)
-				t.stop();
+				if(onClose != null)
+				onClose.run();
 			}
 		});
-		this.addKeyListener(new KeyListener() {
+		KeyListener keys = new KeyListener() {
 
 			@Override
 			public void keyTyped(KeyEvent e) {
@@ -121,22 +145,81 @@ public class Screen extends JFrame {
 				}
 			}
 
-		});
-		this.setSize(new Dimension(image.getWidth() * 2, image.getHeight() * 2));
+		};
+		this.addKeyListener(keys);
+		this.display.addKeyListener(keys);
+		this.display.setPreferredSize(new Dimension(RESX * this.scale, RESY * this.scale));
+		this.add(this.display);
+		this.pack();
+		this.setResizable(false);
 		this.setLocationRelativeTo(null);
 		this.setTitle(title);
 		this.t = title;
 		this.setVisible(true);
+		//Can't get a buffer strategy until the canvas is actually on screen
+		this.display.createBufferStrategy(2);
+		this.display.requestFocus();
+	}
+
+	//Draws the newest frame onto the canvas. Only call this on the EDT
+	private void render() {
+		this.renderQueued.set(false);
+		BufferStrategy bs = this.display.getBufferStrategy();
+		if (bs == null) {
+			return;
+		}
+		BufferedImage image = this.frames.latest();
+		//Either buffer can get lost (window moved to another monitor, screen locked...), in
+		//which case just draw the whole thing again
+		do {
+			do {
+				if (this.vram == null
+						|| this.vram.validate(this.display.getGraphicsConfiguration()) == VolatileImage.IMAGE_INCOMPATIBLE) {
+					this.vram = this.display.createVolatileImage(RESX, RESY);
+				}
+				Graphics2D vg = this.vram.createGraphics();
+				vg.drawImage(image, 0, 0, null);
+				vg.dispose();
+
+				Graphics2D g = (Graphics2D) bs.getDrawGraphics();
+				g.setRenderingHints(this.hints);
+				g.drawImage(this.vram, 0, 0, RESX * this.scale, RESY * this.scale, null);
+				g.dispose();
+			} while (bs.contentsRestored() || this.vram.contentsLost());
+			bs.show();
+		} while (bs.contentsLost());
+		//Otherwise some window systems hang on to the frame for a while
+		Toolkit.getDefaultToolkit().sync();
 	}
 
-	//Paint the buffer onto the screen
 	@Override
-	public void paint(Graphics g) {
-		g.drawImage(image, 0, 0, image.getWidth() * 2, image.getHeight() * 2, null);
+	public int[] getBackBuffer() {
+		return this.frames.getBackBuffer();
 	}
 
-	public void update(BufferedImage frame) {
-		this.g2d.drawImage(frame, 0, 0, frame.getWidth(), frame.getHeight(), null);
-		this.repaint();
+	@Override
+	public int[] present() {
+		int[] next = this.frames.present();
+		if (!this.renderQueued.getAndSet(true)) {
+			EventQueue.invokeLater(this::render);
+		}
+		return next;
+	}
+
+	class Display extends Canvas {
+
+		private static final long serialVersionUID = -2871466427436384905L;
+
+		//Still redraw if the window gets uncovered while the emulator is paused
+		@Override
+		public void paint(Graphics g) {
+			render();
+		}
+
+		//Skips clearing the canvas first, render covers all of it anyway
+		@Override
+		public void update(Graphics g) {
+			render();
+		}
 	}
 }
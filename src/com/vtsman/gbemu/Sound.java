@@ -5,31 +5,49 @@ package com.vtsman.gbemu;
 //This class was supposed to simulate the gameboy's sound system, but sound is hard.
 public class Sound implements IAddressable {
 
-	byte[] temp = new byte[0x100];
+	//@formatter:off
+	//Bits of each register (0xff10-0xff26) that can be read back, the rest always read as 1
+	private static final int[] READ_MASKS = {
+			0x7f, 0xc0, 0xff, 0x00, 0x40, 0x00, 0xc0, 0xff,
+			0x00, 0x40, 0x80, 0x00, 0x60, 0x00, 0x40, 0x00,
+			0x00, 0xff, 0xff, 0x40, 0xff, 0xff, 0x8f };
+	//@formatter:on
+
+	//Nothing actually makes sound yet, so these just hold what was written
+	private final RegisterTable regs = new RegisterTable("Sound");
+
+	public Sound() {
+		for (int addr = 0xff10; addr <= 0xff26; addr++) {
+			this.regs.define(addr, READ_MASKS[addr - 0xff10], 0xff);
+		}
+		//These two don't exist at all
+		this.regs.define(0xff15, 0x00, 0x00);
+		this.regs.define(0xff1f, 0x00, 0x00);
+		//Only the power bit can be written, the channel bits are status
+		this.regs.define(0xff26, 0x8f, 0x80);
+		//Wave pattern RAM
+		for (int addr = 0xff30; addr <= 0xff3f; addr++) {
+			this.regs.define(addr, 0xff, 0xff);
+		}
+	}
 
 	@Override
 	public byte read(int addr) {
-		// TODO Auto-generated method stub
-		//System.out.printf("Sound read from 0x%04x\n", addr);
-		return temp[addr - 0xff00];
+		return this.regs.read(addr);
 	}
 
 	@Override
 	public void write(int addr, byte value) {
-		// TODO Auto-generated method stub
-		//System.out.printf("Sound wrote 0x%02x to 0x%04x\n", value, addr);
-		temp[addr - 0xff00] = value;
+		this.regs.write(addr, value);
+	}
+
+	public void setTraceSink(TraceSink trace) {
+		this.regs.setTraceSink(trace);
 	}
 
 	@Override
 	public boolean isAddressInRange(int addr) {
-		if (addr >= 0xff10 && addr <= 0xff26) {
-			return true;
-		}
-		if (addr >= 0xff30 && addr <= 0xff3f) {
-			return true;
-		}
-		return false;
+		return this.regs.owns(addr);
 	}
 
 }
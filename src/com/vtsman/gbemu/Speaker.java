@@ -15,12 +15,14 @@ public class Speaker {
     private static DataLine.Info info;
     private static SourceDataLine auline;
 
-    static {
+    //The line only gets opened once something actually wants to play sound, so just loading
+    //this class doesn't need a sound card (or a display)
+    private static synchronized void initSoundSystem(){
+        if(auline != null){
+            return;
+        }
         format = new AudioFormat(SAMPLERATE, SAMPLESIZE, CHANNELS, SIGNED, BIGENDIAN);
         info = new DataLine.Info(SourceDataLine.class, format);
-        initSoundSystem();
-    }
-    private static void initSoundSystem(){
         try {
             // Get line to write data to
             auline = (SourceDataLine) AudioSystem.getLine(info);
@@ -32,7 +34,7 @@ public class Speaker {
     }
 
     public Speaker(){
-
+        initSoundSystem();
     }
 
     public void playQueuedAudio(){
@@ -0,0 +1,11 @@
+package com.vtsman.gbemu;
+
+//This interface gets diagnostic messages from the hardware - registers nothing handles, DMA
+//transfers starting, bank changes and so on. Nothing gets traced unless one is set, so normal
+//runs never touch stdout from the emulator thread
+public interface TraceSink {
+	//Prints everything, handy for debugging a single emulator
+	public static final TraceSink STDOUT = System.out::println;
+
+	public void trace(String message);
+}
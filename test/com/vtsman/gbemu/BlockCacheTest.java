@@ -0,0 +1,81 @@
+package com.vtsman.gbemu;
+
+//Runs the same program through the block cache and through the plain interpreter and checks
+//they end up in exactly the same state. The program copies a routine into WRAM that rewrites
+//its own operand every call, reads the divider in the middle of blocks, and takes VBLANK
+//interrupts, which covers invalidation, per-instruction timing and stopping at deadlines
+public class BlockCacheTest {
+
+	public static void main(String[] args) {
+		byte[] rom = program();
+		for (long cycles : new long[] { 1000, 70224, 1000003, 5000000 }) {
+			Emulator blocks = new Emulator(new ROM(rom));
+			Emulator interpreted = new Emulator(new ROM(rom));
+			interpreted.setBlockCache(false);
+			blocks.runCycles(cycles);
+			interpreted.runCycles(cycles);
+			compare(interpreted, blocks, cycles);
+		}
+		System.out.println("BlockCacheTest passed");
+	}
+
+	private static void compare(Emulator expected, Emulator actual, long cycles) {
+		CPU a = expected.getCPU(), b = actual.getCPU();
+		String at = " after " + cycles + " cycles";
+		Check.equal(expected.getClock().getTicks(), actual.getClock().getTicks(), "ticks" + at);
+		Check.equal(a.getAF(), b.getAF(), "AF" + at);
+		Check.equal(a.getBC(), b.getBC(), "BC" + at);
+		Check.equal(a.getDE(), b.getDE(), "DE" + at);
+		Check.equal(a.getHL(), b.getHL(), "HL" + at);
+		Check.equal(a.getSP(), b.getSP(), "SP" + at);
+		Check.equal(a.getPC(), b.getPC(), "PC" + at);
+		//Calls made to the self modifying routine, and interrupts taken
+		MMU m1 = expected.getMMU(), m2 = actual.getMMU();
+		Check.equal(m1.read(0xc001), m2.read(0xc001), "routine operand" + at);
+		Check.equal(m1.read(0xff80), m2.read(0xff80), "interrupt count" + at);
+		if (cycles > 70224) {
+			Check.that(m1.read(0xff80) != 0, "no interrupts were taken" + at);
+		}
+	}
+
+	private static byte[] program() {
+		byte[] rom = new byte[0x8000];
+		//VBLANK handler, counts interrupts at 0xff80
+		Check.put(rom, 0x40, 0xf5, 0xf0, 0x80, 0x3c, 0xe0, 0x80, 0xf1, 0xd9);
+		Check.put(rom, 0x100, 0x00, 0xc3, 0x50, 0x01);
+		Check.put(rom, 0x150,
+				0x31, 0xfe, 0xff,	//ld sp, 0xfffe
+				0x21, 0x00, 0xc0,	//ld hl, 0xc000
+				0x11, 0x00, 0x03,	//ld de, 0x0300
+				0x06, 0x0c,			//ld b, 12
+				0x1a,				//copy: ld a, (de)
+				0x22,				//ld (hl+), a
+				0x13,				//inc de
+				0x05,				//dec b
+				0x20, 0xfa,			//jr nz, copy
+				0x3e, 0x01,			//ld a, 1
+				0xe0, 0xff,			//ldh (0xff), a - VBLANK only
+				0xfb,				//ei
+				0x79,				//loop: ld a, c
+				0xc6, 0x37,			//add a, 0x37
+				0x27,				//daa
+				0x4f,				//ld c, a
+				0xf0, 0x04,			//ldh a, (0x04) - divider
+				0xab,				//xor e
+				0x5f,				//ld e, a
+				0xcd, 0x00, 0xc0,	//call 0xc000
+				0x8a,				//adc a, d
+				0x57,				//ld d, a
+				0x18, 0xf0);		//jr loop
+		//Copied to 0xc000. Adds one to its own first operand every call, and rewrites an
+		//operand further on in the same block
+		Check.put(rom, 0x300,
+				0x3e, 0x00,			//ld a, n
+				0x3c,				//inc a
+				0xea, 0x01, 0xc0,	//ld (0xc001), a
+				0xea, 0x0a, 0xc0,	//ld (0xc00a), a
+				0x06, 0x00,			//ld b, n
+				0xc9);				//ret
+		return rom;
+	}
+}
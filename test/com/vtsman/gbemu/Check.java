@@ -0,0 +1,27 @@
+package com.vtsman.gbemu;
+
+//This class is what the tests use to check results. The tests have no dependencies - each
+//one is a main method that throws if something is wrong. To run one:
+//  javac -d out $(find src test -name '*.java')
+//  java -ea -cp out com.vtsman.gbemu.BlockCacheTest
+public class Check {
+
+	public static void equal(long expected, long actual, String what) {
+		if (expected != actual) {
+			throw new AssertionError(String.format("%s: expected 0x%x but got 0x%x", what, expected, actual));
+		}
+	}
+
+	public static void that(boolean ok, String what) {
+		if (!ok) {
+			throw new AssertionError(what);
+		}
+	}
+
+	//Copies bytes into an image, for putting little programs together
+	public static void put(byte[] image, int addr, int... bytes) {
+		for (int i = 0; i < bytes.length; i++) {
+			image[addr + i] = (byte) bytes[i];
+		}
+	}
+}
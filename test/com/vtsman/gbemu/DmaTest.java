@@ -0,0 +1,134 @@
+package com.vtsman.gbemu;
+
+import java.util.Random;
+
+//Checks the block copies against plain byte by byte access - readBlock and writeBlock over
+//random ranges that cross pages, banks and devices, OAM DMA and GBC DMA
+public class DmaTest {
+
+	public static void main(String[] args) {
+		byte[] rom = new byte[0x8000];
+		Check.put(rom, 0x100, 0x18, 0xfe);
+		//GBC, so VRAM has two banks and GBC DMA works
+		rom[0x143] = (byte) 0x80;
+		Random r = new Random(21);
+		blocks(rom, r);
+		oamDma(rom, r);
+		gbcDma(rom, r);
+		System.out.println("DmaTest passed");
+	}
+
+	//Memory the tests can write to freely: VRAM, WRAM, echo RAM, OAM and HRAM
+	private static int randomAddr(Random r) {
+		int addr;
+		do {
+			addr = 0x8000 + r.nextInt(0x8000);
+		} while (!writable(addr));
+		return addr;
+	}
+
+	private static boolean writable(int addr) {
+		return (addr >= 0x8000 && addr < 0xa000) || (addr >= 0xc000 && addr < 0xfea0) || (addr >= 0xff80 && addr < 0xffff);
+	}
+
+	//How far a block starting at addr can go and stay writable
+	private static int randomLength(Random r, int addr) {
+		int len = 1 + r.nextInt(0x400);
+		int n = 0;
+		while (n < len && writable(addr + n)) {
+			n++;
+		}
+		return n;
+	}
+
+	private static void blocks(byte[] rom, Random r) {
+		Emulator a = new Emulator(new ROM(rom));
+		Emulator b = new Emulator(new ROM(rom));
+		MMU ma = a.getMMU(), mb = b.getMMU();
+		for (int round = 0; round < 500; round++) {
+			int addr = randomAddr(r);
+			int len = randomLength(r, addr);
+			byte[] data = new byte[len];
+			r.nextBytes(data);
+			ma.writeBlock(addr, data, 0, len);
+			for (int i = 0; i < len; i++) {
+				mb.write(addr + i, data[i]);
+			}
+			//Flip VRAM and WRAM banks now and then so both get used
+			if (r.nextInt(20) == 0) {
+				int bank = r.nextInt(2);
+				ma.write(0xff4f, (byte) bank);
+				mb.write(0xff4f, (byte) bank);
+			}
+			if (r.nextInt(20) == 0) {
+				int bank = 1 + r.nextInt(7);
+				ma.write(0xff70, (byte) bank);
+				mb.write(0xff70, (byte) bank);
+			}
+			//Reading back a block has to match reading it a byte at a time
+			int from = r.nextInt(0x10000 - len);
+			byte[] block = new byte[len];
+			ma.readBlock(from, block, 0, len);
+			for (int i = 0; i < len; i++) {
+				Check.equal(ma.read(from + i) & 0xff, block[i] & 0xff, String.format("readBlock at 0x%04x", from + i));
+			}
+		}
+		for (int vram = 0; vram < 2; vram++) {
+			for (int wram = 1; wram < 8; wram++) {
+				ma.write(0xff4f, (byte) vram);
+				mb.write(0xff4f, (byte) vram);
+				ma.write(0xff70, (byte) wram);
+				mb.write(0xff70, (byte) wram);
+				for (int addr = 0x8000; addr < 0x10000; addr++) {
+					if (writable(addr)) {
+						Check.equal(mb.read(addr) & 0xff, ma.read(addr) & 0xff, String.format("writeBlock at 0x%04x, banks %d/%d", addr, vram, wram));
+					}
+				}
+			}
+		}
+	}
+
+	private static void oamDma(byte[] rom, Random r) {
+		Emulator emu = new Emulator(new ROM(rom));
+		MMU m = emu.getMMU();
+		byte[] data = new byte[0xa0];
+		r.nextBytes(data);
+		for (int i = 0; i < data.length; i++) {
+			m.write(0xc300 + i, data[i]);
+		}
+		m.write(0xff46, (byte) 0xc3);
+		emu.runCycles(0xa0 * 4 + 100);
+		for (int i = 0; i < data.length; i++) {
+			Check.equal(data[i] & 0xff, m.read(0xfe00 + i) & 0xff, String.format("OAM byte 0x%02x", i));
+		}
+	}
+
+	private static void gbcDma(byte[] rom, Random r) {
+		Emulator emu = new Emulator(new ROM(rom));
+		MMU m = emu.getMMU();
+		int chunks = 0x20;
+		byte[] data = new byte[chunks * 0x10];
+		r.nextBytes(data);
+		for (int i = 0; i < data.length; i++) {
+			m.write(0xc400 + i, data[i]);
+		}
+		m.write(0xff4f, (byte) 1);
+		m.write(0xff51, (byte) 0xc4);
+		m.write(0xff52, (byte) 0x00);
+		m.write(0xff53, (byte) 0x08);
+		m.write(0xff54, (byte) 0x80);
+		//General purpose DMA
+		m.write(0xff55, (byte) (chunks - 1));
+		Check.that((m.read(0xff55) & 0x80) == 0, "DMA should be running");
+		emu.runCycles(chunks * 64 + 100);
+		Check.equal(0xff, m.read(0xff55) & 0xff, "DMA should be done");
+		for (int i = 0; i < data.length; i++) {
+			Check.equal(data[i] & 0xff, m.read(0x8880 + i) & 0xff, String.format("VRAM byte 0x%04x", 0x8880 + i));
+		}
+		//Nothing went into the other bank
+		m.write(0xff4f, (byte) 0);
+		for (int i = 0; i < data.length; i++) {
+			Check.equal(0, m.read(0x8880 + i) & 0xff, String.format("bank 0 VRAM byte 0x%04x", 0x8880 + i));
+		}
+	}
+}
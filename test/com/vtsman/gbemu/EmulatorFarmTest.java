@@ -0,0 +1,40 @@
+package com.vtsman.gbemu;
+
+//A session that throws, even an Error, has to finish so awaitAll returns, and the report
+//has to say it crashed. The stack trace it prints is expected
+public class EmulatorFarmTest {
+
+	public static void main(String[] args) throws InterruptedException {
+		byte[] rom = new byte[0x8000];
+		Check.put(rom, 0x100, 0x18, 0xfe);
+		EmulatorFarm farm = new EmulatorFarm(2);
+		EmulatorFarm.Session ok = farm.add("ok", new Emulator(new ROM(rom)), 3);
+		EmulatorFarm.Session bad = farm.add("bad", new Emulator(new ROM(rom)) {
+			@Override
+			public boolean runFrames(int n) {
+				throw new StackOverflowError("test");
+			}
+		}, 3);
+
+		Thread waiter = new Thread(() -> {
+			try {
+				farm.awaitAll();
+			} catch (InterruptedException e) {
+				e.printStackTrace();
+			}
+		});
+		waiter.setDaemon(true);
+		waiter.start();
+		waiter.join(10000);
+		Check.that(!waiter.isAlive(), "awaitAll never returned");
+
+		Check.that(ok.isDone() && !ok.isCrashed(), "ok should finish normally");
+		Check.equal(3, ok.getFrames(), "frames run by ok");
+		Check.that(bad.isDone() && bad.isCrashed(), "bad should be done and crashed");
+		String report = farm.report();
+		Check.that(report.matches("(?s).*\\bbad\\b[^\n]*\\(crashed\\).*"), "report should flag bad:\n" + report);
+		Check.that(!report.matches("(?s).*\\bok\\b[^\n]*\\(crashed\\).*"), "report shouldn't flag ok:\n" + report);
+		farm.shutdown();
+		System.out.println("EmulatorFarmTest passed");
+	}
+}
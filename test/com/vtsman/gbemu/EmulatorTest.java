@@ -0,0 +1,25 @@
+package com.vtsman.gbemu;
+
+//Checks that runCycles stops within one instruction of its goal, even when the CPU spends the
+//whole time halted and skipping ahead to scheduled events
+public class EmulatorTest {
+
+	//Longest instruction, in ticks
+	private static final int SLACK = 24;
+
+	public static void main(String[] args) {
+		byte[] rom = new byte[0x8000];
+		//di, then halt forever with nothing enabled to wake it up
+		Check.put(rom, 0x100, 0xf3, 0x76, 0x18, 0xfd);
+		Emulator emu = new Emulator(new ROM(rom));
+		Clock clock = emu.getClock();
+		for (long n : new long[] { 1, 10, 100, 457, 1000, 70224, 100000 }) {
+			long start = clock.getTicks();
+			emu.runCycles(n);
+			long ran = clock.getTicks() - start;
+			Check.that(ran >= n && ran < n + SLACK, "runCycles(" + n + ") ran " + ran + " ticks");
+		}
+		Check.that(emu.getCPU().halted(), "the CPU should be halted");
+		System.out.println("EmulatorTest passed");
+	}
+}
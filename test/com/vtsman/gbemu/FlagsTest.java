@@ -0,0 +1,305 @@
+package com.vtsman.gbemu;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+//The ALU works the flags out lazily, so this runs random chains of flag producers followed
+//by one flag consumer (PUSH AF, a conditional jump, call or return, ADC or SBC) and checks
+//the result against flags worked out eagerly. Any opcode missing from READS_FLAGS shows up
+//here as a consumer seeing stale flags
+public class FlagsTest {
+
+	private static final int Z = 0x80, N = 0x40, H = 0x20, C = 0x10;
+
+	//Where the test routines get written, and the subroutine CALL cc jumps to
+	private static final int CODE = 0xc000, SUB = 0xc800;
+
+	//The registers the routines touch
+	private static class State {
+		int a, f, b, de, hl;
+
+		boolean flag(int bit) {
+			return (this.f & bit) != 0;
+		}
+
+		void set(int bit, boolean on) {
+			this.f = on ? this.f | bit : this.f & ~bit;
+		}
+
+		//Sets A and all four flags from an 8 bit ALU result
+		void alu(int r, boolean n, boolean h, boolean c) {
+			this.a = r & 0xff;
+			this.f = 0;
+			this.set(Z, this.a == 0);
+			this.set(N, n);
+			this.set(H, h);
+			this.set(C, c);
+		}
+	}
+
+	private interface Eager {
+		void run(State s);
+	}
+
+	private static class Op {
+		final String name;
+		final int[] code;
+		final Eager eager;
+
+		Op(String name, Eager eager, int... code) {
+			this.name = name;
+			this.code = code;
+			this.eager = eager;
+		}
+	}
+
+	//@formatter:off
+	private static final Op[] PRODUCERS = {
+		new Op("add a,b", s -> s.alu(s.a + s.b, false, (s.a & 0xf) + (s.b & 0xf) > 0xf, s.a + s.b > 0xff), 0x80),
+		new Op("adc a,b", s -> {
+			int c = s.flag(C) ? 1 : 0;
+			s.alu(s.a + s.b + c, false, (s.a & 0xf) + (s.b & 0xf) + c > 0xf, s.a + s.b + c > 0xff);
+		}, 0x88),
+		new Op("sub b", s -> s.alu(s.a - s.b, true, (s.a & 0xf) < (s.b & 0xf), s.a < s.b), 0x90),
+		new Op("sbc a,b", s -> {
+			int c = s.flag(C) ? 1 : 0;
+			s.alu(s.a - s.b - c, true, (s.a & 0xf) - (s.b & 0xf) - c < 0, s.a - s.b - c < 0);
+		}, 0x98),
+		new Op("and b", s -> s.alu(s.a & s.b, false, true, false), 0xa0),
+		new Op("xor b", s -> s.alu(s.a ^ s.b, false, false, false), 0xa8),
+		new Op("or b", s -> s.alu(s.a | s.b, false, false, false), 0xb0),
+		new Op("cp b", s -> {
+			int a = s.a;
+			s.alu(s.a - s.b, true, (s.a & 0xf) < (s.b & 0xf), s.a < s.b);
+			s.a = a;
+		}, 0xb8),
+		new Op("inc a", s -> s.alu(s.a + 1, false, (s.a & 0xf) == 0xf, s.flag(C)), 0x3c),
+		new Op("dec a", s -> s.alu(s.a - 1, true, (s.a & 0xf) == 0, s.flag(C)), 0x3d),
+		new Op("daa", FlagsTest::daa, 0x27),
+		new Op("cpl", s -> {
+			s.a = ~s.a & 0xff;
+			s.set(N, true);
+			s.set(H, true);
+		}, 0x2f),
+		new Op("scf", s -> {
+			s.set(N, false);
+			s.set(H, false);
+			s.set(C, true);
+		}, 0x37),
+		new Op("ccf", s -> {
+			s.set(N, false);
+			s.set(H, false);
+			s.set(C, !s.flag(C));
+		}, 0x3f),
+		new Op("rlca", s -> rotate(s, (s.a << 1) | (s.a >> 7), s.a >> 7, false), 0x07),
+		new Op("rla", s -> rotate(s, (s.a << 1) | (s.flag(C) ? 1 : 0), s.a >> 7, false), 0x17),
+		new Op("rrca", s -> rotate(s, (s.a >> 1) | (s.a << 7), s.a & 1, false), 0x0f),
+		new Op("rra", s -> rotate(s, (s.a >> 1) | (s.flag(C) ? 0x80 : 0), s.a & 1, false), 0x1f),
+		new Op("rlc a", s -> rotate(s, (s.a << 1) | (s.a >> 7), s.a >> 7, true), 0xcb, 0x07),
+		new Op("rl a", s -> rotate(s, (s.a << 1) | (s.flag(C) ? 1 : 0), s.a >> 7, true), 0xcb, 0x17),
+		new Op("rrc a", s -> rotate(s, (s.a >> 1) | (s.a << 7), s.a & 1, true), 0xcb, 0x0f),
+		new Op("rr a", s -> rotate(s, (s.a >> 1) | (s.flag(C) ? 0x80 : 0), s.a & 1, true), 0xcb, 0x1f),
+		new Op("sla a", s -> rotate(s, s.a << 1, s.a >> 7, true), 0xcb, 0x27),
+		new Op("sra a", s -> rotate(s, (s.a >> 1) | (s.a & 0x80), s.a & 1, true), 0xcb, 0x2f),
+		new Op("srl a", s -> rotate(s, s.a >> 1, s.a & 1, true), 0xcb, 0x3f),
+		new Op("swap a", s -> s.alu((s.a >> 4) | (s.a << 4), false, false, false), 0xcb, 0x37),
+		new Op("bit 3,a", s -> {
+			s.set(Z, (s.a & 0x08) == 0);
+			s.set(N, false);
+			s.set(H, true);
+		}, 0xcb, 0x5f),
+		new Op("add hl,de", s -> {
+			int r = s.hl + s.de;
+			s.set(N, false);
+			s.set(H, (s.hl & 0xfff) + (s.de & 0xfff) > 0xfff);
+			s.set(C, r > 0xffff);
+			s.hl = r & 0xffff;
+		}, 0x19),
+	};
+	//@formatter:on
+
+	private static final String[] CONDITIONS = { "nz", "z", "nc", "c" };
+
+	public static void main(String[] args) {
+		byte[] rom = new byte[0x8000];
+		//ld sp,0xdff0; di
+		Check.put(rom, 0x100, 0x31, 0xf0, 0xdf, 0xf3);
+		//Wait for 0xff80 to be set, clear it, call the routine and go back to waiting
+		Check.put(rom, 0x104, 0xf0, 0x80, 0xb7, 0x28, 0xfb, 0xaf, 0xe0, 0x80, 0xcd, CODE & 0xff, CODE >> 8, 0x18, 0xf3);
+		Random r = new Random(6);
+		for (boolean blocks : new boolean[] { false, true }) {
+			Emulator emu = new Emulator(new ROM(rom));
+			emu.setBlockCache(blocks);
+			MMU m = emu.getMMU();
+			//ld c,1; ret
+			write(m, SUB, 0x0e, 0x01, 0xc9);
+			for (int round = 0; round < 3000; round++) {
+				run(emu, m, r, blocks);
+			}
+		}
+		System.out.println("FlagsTest passed");
+	}
+
+	//Builds one routine, runs it and checks A, F and whether the branch was taken
+	private static void run(Emulator emu, MMU m, Random r, boolean blocks) {
+		State s = new State();
+		s.a = r.nextInt(0x100);
+		s.f = r.nextInt(0x10) << 4;
+		s.b = r.nextInt(0x100);
+		s.de = r.nextInt(0x10000);
+		s.hl = r.nextInt(0x10000);
+		int e = r.nextInt(0x100);
+		int kind = r.nextInt(7);
+		int cond = r.nextInt(4);
+		StringBuilder what = new StringBuilder(String.format("a=%02x f=%02x b=%02x de=%04x hl=%04x:", s.a, s.f, s.b, s.de, s.hl));
+
+		List<Integer> code = new ArrayList<Integer>();
+		//ld c,0
+		emit(code, 0x0e, 0x00);
+		//RET cc needs somewhere to return to, filled in once we know where that is
+		int retPatch = -1;
+		if (kind == 4) {
+			retPatch = code.size() + 1;
+			emit(code, 0x21, 0, 0, 0xe5);
+		}
+		//Load every register through the stack so the flags start out exact
+		emit(code, 0x21, s.f, s.a, 0xe5, 0xf1);
+		emit(code, 0x06, s.b, 0x11, s.de & 0xff, s.de >> 8, 0x1e, e, 0x21, s.hl & 0xff, s.hl >> 8);
+		s.de = (s.de & 0xff00) | e;
+
+		for (int i = 1 + r.nextInt(3); i > 0; i--) {
+			Op op = PRODUCERS[r.nextInt(PRODUCERS.length)];
+			for (int b : op.code) {
+				emit(code, b);
+			}
+			op.eager.run(s);
+			what.append(' ').append(op.name).append(';');
+		}
+
+		boolean taken = false;
+		switch (kind) {
+		case 0:
+			//push af is part of storing the result below
+			what.append(" push af");
+			break;
+		case 1:
+			//jp cc,L; jr +2; L: ld c,1
+			taken = condition(s, cond);
+			emit(code, 0xc2 + cond * 8);
+			int target = CODE + code.size() + 4;
+			emit(code, target & 0xff, target >> 8, 0x18, 0x02, 0x0e, 0x01);
+			what.append(" jp ").append(CONDITIONS[cond]);
+			break;
+		case 2:
+			//jr cc,+2; jr +2; ld c,1
+			taken = condition(s, cond);
+			emit(code, 0x20 + cond * 8, 0x02, 0x18, 0x02, 0x0e, 0x01);
+			what.append(" jr ").append(CONDITIONS[cond]);
+			break;
+		case 3:
+			taken = condition(s, cond);
+			emit(code, 0xc4 + cond * 8, SUB & 0xff, SUB >> 8);
+			what.append(" call ").append(CONDITIONS[cond]);
+			break;
+		case 4:
+			//ret cc; pop hl; jr +2; R: ld c,1
+			taken = condition(s, cond);
+			emit(code, 0xc0 + cond * 8, 0xe1, 0x18, 0x02);
+			int back = CODE + code.size();
+			code.set(retPatch, back & 0xff);
+			code.set(retPatch + 1, back >> 8);
+			emit(code, 0x0e, 0x01);
+			what.append(" ret ").append(CONDITIONS[cond]);
+			break;
+		case 5:
+			emit(code, 0x8b);
+			int c = s.flag(C) ? 1 : 0;
+			s.alu(s.a + e + c, false, (s.a & 0xf) + (e & 0xf) + c > 0xf, s.a + e + c > 0xff);
+			what.append(" adc a,e");
+			break;
+		case 6:
+			emit(code, 0x9b);
+			int borrow = s.flag(C) ? 1 : 0;
+			s.alu(s.a - e - borrow, true, (s.a & 0xf) - (e & 0xf) - borrow < 0, s.a - e - borrow < 0);
+			what.append(" sbc a,e");
+			break;
+		}
+
+		//push af; pop hl; then A, F and C go to 0xd000-0xd002
+		emit(code, 0xf5, 0xe1, 0x7d, 0xea, 0x00, 0xd0, 0x7c, 0xea, 0x01, 0xd0, 0x79, 0xea, 0x02, 0xd0);
+		//Let the test know it's done: ld a,1; ldh (0x81),a; ret
+		emit(code, 0x3e, 0x01, 0xe0, 0x81, 0xc9);
+
+		for (int i = 0; i < code.size(); i++) {
+			m.write(CODE + i, (byte) (int) code.get(i));
+		}
+		m.write(0xff81, (byte) 0);
+		m.write(0xff80, (byte) 1);
+		for (int tries = 0; m.read(0xff81) == 0; tries++) {
+			Check.that(tries < 100, "routine never finished:" + what);
+			emu.runCycles(200);
+		}
+
+		String where = (blocks ? "block cache, " : "interpreter, ") + what;
+		Check.equal(s.f, m.read(0xd000) & 0xff, "F after " + where);
+		Check.equal(s.a, m.read(0xd001) & 0xff, "A after " + where);
+		Check.equal(taken ? 1 : 0, m.read(0xd002), "branch taken after " + where);
+	}
+
+	private static boolean condition(State s, int cond) {
+		switch (cond) {
+		case 0:
+			return !s.flag(Z);
+		case 1:
+			return s.flag(Z);
+		case 2:
+			return !s.flag(C);
+		default:
+			return s.flag(C);
+		}
+	}
+
+	//RLCA and friends always clear Z, the CB versions set it from the result
+	private static void rotate(State s, int r, int carry, boolean cb) {
+		s.alu(r, false, false, carry != 0);
+		if (!cb) {
+			s.set(Z, false);
+		}
+	}
+
+	private static void daa(State s) {
+		int a = s.a;
+		if (!s.flag(N)) {
+			if (s.flag(C) || a > 0x99) {
+				a += 0x60;
+				s.set(C, true);
+			}
+			if (s.flag(H) || (a & 0xf) > 0x9) {
+				a += 0x06;
+			}
+		} else {
+			if (s.flag(C)) {
+				a -= 0x60;
+			}
+			if (s.flag(H)) {
+				a -= 0x06;
+			}
+		}
+		s.a = a & 0xff;
+		s.set(Z, s.a == 0);
+		s.set(H, false);
+	}
+
+	private static void emit(List<Integer> code, int... bytes) {
+		for (int b : bytes) {
+			code.add(b & 0xff);
+		}
+	}
+
+	private static void write(MMU m, int addr, int... bytes) {
+		for (int i = 0; i < bytes.length; i++) {
+			m.write(addr + i, (byte) bytes[i]);
+		}
+	}
+}
@@ -0,0 +1,43 @@
+package com.vtsman.gbemu;
+
+import java.lang.reflect.Field;
+
+//Cartridges with the same image should share one array, and changing the array a cartridge
+//was made from afterwards mustn't change what any of them read
+public class RomShareTest {
+
+	public static void main(String[] args) throws ReflectiveOperationException {
+		byte[] image = new byte[0x8000];
+		for (int i = 0; i < image.length; i++) {
+			image[i] = (byte) (i * 31 + (i >> 8));
+		}
+		image[0x147] = 0;
+		ROM a = new ROM(image);
+		ROM b = new ROM(image.clone());
+		Check.that(data(a) == data(b), "same image should be shared");
+		Check.that(data(a) != image, "the caller's array shouldn't be shared");
+
+		//Scribble over the caller's array, neither cartridge should notice
+		byte[] before = image.clone();
+		for (int i = 0; i < image.length; i++) {
+			image[i] ^= 0x5a;
+		}
+		for (int addr = 0; addr < 0x8000; addr++) {
+			Check.equal(before[addr] & 0xff, a.read(addr) & 0xff, String.format("a at 0x%04x", addr));
+			Check.equal(before[addr] & 0xff, b.read(addr) & 0xff, String.format("b at 0x%04x", addr));
+		}
+
+		//A different image gets its own array
+		before[0x7fff] ^= 1;
+		ROM c = new ROM(before);
+		Check.that(data(c) != data(a), "different images shouldn't be shared");
+		Check.equal(before[0x7fff] & 0xff, c.read(0x7fff) & 0xff, "c at 0x7fff");
+		System.out.println("RomShareTest passed");
+	}
+
+	private static byte[] data(ROM rom) throws ReflectiveOperationException {
+		Field f = ROM.class.getDeclaredField("data");
+		f.setAccessible(true);
+		return (byte[]) f.get(rom);
+	}
+}
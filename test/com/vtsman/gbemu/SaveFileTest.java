@@ -0,0 +1,62 @@
+package com.vtsman.gbemu;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+//Battery backed RAM only goes to a .sav file when asked for, only one cartridge at a time
+//gets the file, and flush and close really put it on disk
+public class SaveFileTest {
+
+	public static void main(String[] args) throws IOException {
+		File dir = Files.createTempDirectory("gbemu").toFile();
+		File game = new File(dir, "game.gb");
+		File sav = new File(dir, "game.sav");
+		byte[] rom = new byte[0x8000];
+		//MBC1 with battery backed RAM, 8K of it
+		rom[0x147] = 0x03;
+		rom[0x149] = 0x02;
+		Files.write(game.toPath(), rom);
+		try {
+			//Saves are opt in
+			ROM scratch = new ROM(game);
+			enable(scratch);
+			scratch.write(0xa000, (byte) 0x11);
+			Check.that(!sav.exists(), "ROM(File) shouldn't create a save");
+
+			ROM a = new ROM(game, true);
+			ROM b = new ROM(game, true);
+			Check.that(sav.exists(), "ROM(File, true) should create a save");
+			enable(a);
+			enable(b);
+			a.write(0xa000, (byte) 0x42);
+			b.write(0xa001, (byte) 0x24);
+			Check.equal(0, b.read(0xa000), "b sees a's write");
+			Check.equal(0, a.read(0xa001), "a sees b's write");
+
+			a.flush();
+			byte[] saved = Files.readAllBytes(sav.toPath());
+			Check.equal(0x2000, saved.length, "save size");
+			Check.equal(0x42, saved[0], "a's write in the save");
+			Check.equal(0, saved[1], "b's write in the save");
+
+			//Once a lets go, the next cartridge gets the save and what a wrote
+			a.close();
+			ROM c = new ROM(game, true);
+			enable(c);
+			Check.equal(0x42, c.read(0xa000), "c reading the save");
+			c.write(0xa002, (byte) 0x33);
+			c.close();
+			Check.equal(0x33, Files.readAllBytes(sav.toPath())[2], "c's write in the save");
+		} finally {
+			sav.delete();
+			game.delete();
+			dir.delete();
+		}
+		System.out.println("SaveFileTest passed");
+	}
+
+	private static void enable(ROM r) {
+		r.write(0x0000, (byte) 0x0a);
+	}
+}
@@ -0,0 +1,104 @@
+package com.vtsman.gbemu;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+//Checks that events fire in deadline order, that moving and cancelling them works, and that
+//a boundary request stops the CPU straight away
+public class SchedulerTest {
+
+	public static void main(String[] args) {
+		order();
+		randomized();
+		boundary();
+		System.out.println("SchedulerTest passed");
+	}
+
+	private static void order() {
+		Scheduler s = new Scheduler();
+		List<Long> fired = new ArrayList<Long>();
+		Scheduler.Event a = new Scheduler.Event(fired::add);
+		Scheduler.Event b = new Scheduler.Event(fired::add);
+		Scheduler.Event c = new Scheduler.Event(fired::add);
+		s.schedule(a, 300);
+		s.schedule(b, 100);
+		s.schedule(c, 200);
+		Check.equal(100, s.nextDeadline(), "earliest deadline");
+		//Moving an event that's already scheduled
+		s.schedule(b, 400);
+		Check.equal(200, s.nextDeadline(), "deadline after moving");
+		s.cancel(c);
+		Check.that(!c.isScheduled(), "cancelled event still scheduled");
+		Check.equal(300, s.nextDeadline(), "deadline after cancelling");
+		s.runDue(350);
+		Check.equal(1, fired.size(), "events fired by 350");
+		Check.equal(300, fired.get(0), "deadline passed to the event");
+		Check.equal(400, s.nextDeadline(), "deadline after firing");
+		s.runDue(1000);
+		Check.equal(2, fired.size(), "events fired by 1000");
+		Check.equal(Long.MAX_VALUE, s.nextDeadline(), "deadline with nothing scheduled");
+	}
+
+	//Lots of events scheduled, moved and cancelled at random, checked against a plain list
+	private static void randomized() {
+		Random r = new Random(7);
+		Scheduler s = new Scheduler();
+		List<Long> fired = new ArrayList<Long>();
+		Scheduler.Event[] events = new Scheduler.Event[50];
+		long[] deadlines = new long[events.length];
+		for (int i = 0; i < events.length; i++) {
+			events[i] = new Scheduler.Event(fired::add);
+		}
+		long now = 0;
+		for (int round = 0; round < 2000; round++) {
+			int i = r.nextInt(events.length);
+			if (r.nextInt(4) == 0) {
+				s.cancel(events[i]);
+			} else {
+				deadlines[i] = now + 1 + r.nextInt(1000);
+				s.schedule(events[i], deadlines[i]);
+			}
+			long expected = Long.MAX_VALUE;
+			for (int j = 0; j < events.length; j++) {
+				if (events[j].isScheduled()) {
+					expected = Math.min(expected, deadlines[j]);
+				}
+			}
+			Check.equal(expected, s.nextDeadline(), "next deadline in round " + round);
+			if (r.nextInt(10) == 0) {
+				now += r.nextInt(500);
+				fired.clear();
+				s.runDue(now);
+				for (int k = 1; k < fired.size(); k++) {
+					Check.that(fired.get(k - 1) <= fired.get(k), "events fired out of order");
+				}
+				for (long d : fired) {
+					Check.that(d <= now, "event fired early");
+				}
+				for (int j = 0; j < events.length; j++) {
+					Check.that(!events[j].isScheduled() || deadlines[j] > now, "due event didn't fire");
+				}
+			}
+		}
+	}
+
+	private static void boundary() {
+		Scheduler s = new Scheduler();
+		int[] runs = new int[1];
+		s.setBoundaryTask(() -> runs[0]++);
+		Scheduler.Event e = new Scheduler.Event(d -> {
+		});
+		s.schedule(e, 500);
+		s.requestBoundary();
+		Check.that(s.nextDeadline() <= 0, "boundary request didn't stop the CPU");
+		//Moving events around doesn't lose the request
+		s.schedule(e, 600);
+		s.cancel(e);
+		s.schedule(e, 500);
+		Check.that(s.nextDeadline() <= 0, "boundary request was lost");
+		s.runDue(10);
+		Check.equal(1, runs[0], "boundary task runs");
+		Check.equal(500, s.nextDeadline(), "deadline after the boundary");
+	}
+}
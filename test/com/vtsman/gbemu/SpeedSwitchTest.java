@@ -0,0 +1,48 @@
+package com.vtsman.gbemu;
+
+//A GBC game asks for double speed by setting KEY1 bit 0 and running STOP. After that the
+//CPU runs twice as many ticks per scanline, but the timer still counts CPU ticks
+public class SpeedSwitchTest {
+
+	public static void main(String[] args) {
+		byte[] rom = new byte[0x8000];
+		rom[0x143] = (byte) 0x80;
+		//stop without asking for a switch; ld a,1; ldh (0x4d),a; ld hl,0xff80
+		Check.put(rom, 0x100, 0x10, 0x00, 0x3e, 0x01, 0xe0, 0x4d, 0x21, 0x80, 0xff);
+		//Wait for the test to write 0xff80, then stop; jr -2
+		Check.put(rom, 0x109, 0x7e, 0xb7, 0x28, 0xfc, 0x10, 0x00, 0x18, 0xfe);
+		Emulator emu = new Emulator(new ROM(rom));
+		MMU m = emu.getMMU();
+
+		//The first STOP ran before KEY1 asked for anything, so it left the speed alone
+		emu.runCycles(1000);
+		Check.equal(0x01, m.read(0xff4d) & 0xff, "KEY1 before STOP");
+		//The speed bit can't be written directly
+		m.write(0xff4d, (byte) 0x81);
+		Check.equal(0x01, m.read(0xff4d) & 0xff, "KEY1 after writing bit 7");
+		int[] single = measure(emu);
+
+		m.write(0xff80, (byte) 1);
+		emu.runCycles(1000);
+		Check.equal(0x80, m.read(0xff4d) & 0xff, "KEY1 after STOP");
+		int[] fast = measure(emu);
+
+		//10000 ticks is 21.9 lines at normal speed, and half that at double speed
+		Check.that(single[0] >= 21 && single[0] <= 22, "lines at normal speed: " + single[0]);
+		Check.that(fast[0] >= 10 && fast[0] <= 11, "lines at double speed: " + fast[0]);
+		//and 39 DIV increments either way
+		Check.that(single[1] >= 39 && single[1] <= 40, "DIV at normal speed: " + single[1]);
+		Check.that(fast[1] >= 39 && fast[1] <= 40, "DIV at double speed: " + fast[1]);
+		System.out.println("SpeedSwitchTest passed");
+	}
+
+	//How many scanlines and DIV increments go by in 10000 ticks
+	private static int[] measure(Emulator emu) {
+		MMU m = emu.getMMU();
+		int ly = m.read(0xff44) & 0xff, div = m.read(0xff04) & 0xff;
+		emu.runCycles(10000);
+		int lines = ((m.read(0xff44) & 0xff) - ly + 154) % 154;
+		int divs = ((m.read(0xff04) & 0xff) - div + 256) % 256;
+		return new int[] { lines, divs };
+	}
+}
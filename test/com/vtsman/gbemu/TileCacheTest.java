@@ -0,0 +1,40 @@
+package com.vtsman.gbemu;
+
+//Checks that decoded tiles get decoded again after VRAM changes, whether the write comes from
+//a single byte store or a block copy. The ROM just spins, the background is tile 0 everywhere
+//and only tile 0's first row gets changed
+public class TileCacheTest {
+
+	private static final int WHITE = 0xffffff, LIGHT = 0xaaaaaa, DARK = 0x555555, BLACK = 0x000000;
+
+	public static void main(String[] args) {
+		byte[] rom = new byte[0x8000];
+		//jr -2
+		Check.put(rom, 0x100, 0x18, 0xfe);
+		Emulator emu = new Emulator(new ROM(rom));
+		MemoryFrameSink sink = new MemoryFrameSink();
+		emu.setFrameSink(sink);
+		GPU gpu = emu.getGPU();
+
+		check(emu, sink, WHITE, "blank tile");
+		gpu.write(0x8000, (byte) 0xff);
+		gpu.write(0x8001, (byte) 0xff);
+		check(emu, sink, BLACK, "after writing both bytes");
+		gpu.write(0x8000, (byte) 0x00);
+		check(emu, sink, DARK, "after writing the low byte");
+		emu.getMMU().writeBlock(0x8000, new byte[] { (byte) 0xff, 0x00 }, 0, 2);
+		check(emu, sink, LIGHT, "after a block write");
+		System.out.println("TileCacheTest passed");
+	}
+
+	//Runs long enough for a whole frame to be drawn with the new data, then checks the top
+	//row of the first tile and the row under it
+	private static void check(Emulator emu, MemoryFrameSink sink, int expected, String what) {
+		emu.runFrames(2);
+		int[] frame = sink.getFrame();
+		for (int x = 0; x < 8; x++) {
+			Check.equal(expected, frame[x] & 0xffffff, "pixel " + x + " " + what);
+			Check.equal(WHITE, frame[160 + x] & 0xffffff, "pixel " + x + " of row 1 " + what);
+		}
+	}
+}
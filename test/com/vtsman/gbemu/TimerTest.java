@@ -0,0 +1,116 @@
+package com.vtsman.gbemu;
+
+import java.util.Random;
+
+//Checks the closed form divider and TIMA in Clock against the old tick by tick loop, with
+//random register writes, runs of every length and lots of overflows, including ones where
+//TIMA wraps several times between reads
+public class TimerTest {
+
+	//The timer the way it used to be worked out, one tick at a time
+	private static class SteppedTimer {
+		short divider = (short) 0xABCC;
+		int period = 16;
+		byte tima = 0;
+		byte tma = 0;
+		boolean started = true;
+		boolean interrupted = false;
+
+		void inc(long amount) {
+			for (long i = 0; i < amount; i++) {
+				divider++;
+				if ((divider & (period - 1)) == period >> 1 && started) {
+					tima++;
+					if (tima == 0) {
+						tima = tma;
+						interrupted = true;
+					}
+				}
+			}
+		}
+
+		//Ticks from now until TIMA next overflows
+		long untilOverflow() {
+			SteppedTimer t = new SteppedTimer();
+			t.divider = divider;
+			t.period = period;
+			t.tima = tima;
+			t.tma = tma;
+			t.started = started;
+			long ticks = 0;
+			while (!t.interrupted) {
+				t.inc(1);
+				ticks++;
+			}
+			return ticks;
+		}
+
+		void write(int addr, int value) {
+			if (addr == 0xff04) {
+				divider = 0;
+			}
+			if (addr == 0xff05) {
+				tima = (byte) value;
+			}
+			if (addr == 0xff06) {
+				tma = (byte) value;
+			}
+			if (addr == 0xff07) {
+				period = new int[] { 1024, 16, 64, 256 }[value & 3];
+				if ((value & 4) == 0 && started && (divider & period >> 1) != 0) {
+					tima++;
+				}
+				started = (value & 4) != 0;
+			}
+		}
+	}
+
+	public static void main(String[] args) {
+		for (int seed = 0; seed < 20; seed++) {
+			run(seed);
+		}
+		System.out.println("TimerTest passed");
+	}
+
+	private static void run(int seed) {
+		Random r = new Random(seed);
+		InterruptController ic = new InterruptController();
+		Clock clock = new Clock(ic);
+		Scheduler s = clock.getScheduler();
+		//There's no CPU to take the interrupts
+		s.setBoundaryTask(null);
+		SteppedTimer ref = new SteppedTimer();
+		for (int step = 0; step < 3000; step++) {
+			String at = "seed " + seed + " step " + step;
+			switch (r.nextInt(6)) {
+			case 0:
+				int addr = 0xff04 + r.nextInt(4);
+				int value = r.nextInt(256);
+				clock.write(addr, (byte) value);
+				ref.write(addr, value);
+				break;
+			case 1:
+				//Long enough to overflow many times over
+				long n = r.nextInt(300000);
+				clock.inc((int) n);
+				ref.inc(n);
+				break;
+			default:
+				n = r.nextInt(2000);
+				clock.inc((int) n);
+				ref.inc(n);
+				break;
+			}
+			//The timer event fires the same way it does in the emulator
+			s.runDue(clock.getTicks());
+			Check.equal(ref.interrupted ? 4 : 0, ic.read(0xff0f) & 4, "timer interrupt, " + at);
+			ic.write(0xff0f, (byte) 0);
+			ref.interrupted = false;
+			Check.equal(ref.divider >> 8 & 0xff, clock.read(0xff04) & 0xff, "DIV, " + at);
+			Check.equal(ref.tima & 0xff, clock.read(0xff05) & 0xff, "TIMA, " + at);
+			if (ref.started && step % 50 == 0) {
+				Check.equal(clock.getTicks() + ref.untilOverflow(), clock.nextTimerInterrupt(), "next overflow, " + at);
+			}
+		}
+	}
+}